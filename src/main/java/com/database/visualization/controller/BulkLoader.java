@@ -0,0 +1,457 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.utils.ConnectionManager;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * 批量导入表数据
+ * MySQL使用LOAD DATA LOCAL INFILE、PostgreSQL使用COPY FROM STDIN，数据边读边以文本格式发送给服务端；
+ * 其他数据库，或服务端禁用了本地文件导入时，使用预编译INSERT分批执行。
+ * 整个导入在一个事务中完成，出错或取消时全部回滚
+ */
+public final class BulkLoader {
+    // 每读取多少行报告一次进度
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    private BulkLoader() {
+    }
+
+    /**
+     * 导入数据
+     * @param config 连接配置
+     * @param table 表名，可以带schema
+     * @param source 数据来源，由调用方关闭
+     * @param progress 接收已读取的行数，可以为null
+     * @param cancelled 返回true时停止导入并回滚，可以为null
+     * @return 导入结果，包含success、rows、method（使用的导入方式），失败时包含error
+     */
+    public static Map<String, Object> load(ConnectionConfig config, String table, RowSource source,
+                                           LongConsumer progress, BooleanSupplier cancelled) {
+        Map<String, Object> result = new HashMap<>();
+        RowCounter counter = new RowCounter(source, progress, cancelled);
+        String type = config.getDatabaseType().toLowerCase();
+
+        try {
+            // CSV列名可能是关键字，按数据库的方式引用
+            PaginationDialect dialect = PaginationDialect.forConfig(config);
+            List<String> columns = new ArrayList<>();
+            for (String column : source.getColumns()) {
+                columns.add(dialect.quoteName(column));
+            }
+            String columnList = String.join(", ", columns);
+
+            SQLException nativeError = null;
+            if (type.equals("mysql") || type.equals("postgresql")) {
+                try {
+                    long rows = type.equals("mysql")
+                            ? loadMysql(config, table, columns, counter)
+                            : loadPostgresql(config, table, columnList, counter);
+                    result.put("success", true);
+                    result.put("rows", rows);
+                    result.put("method", type.equals("mysql") ? "LOAD DATA" : "COPY");
+                    return result;
+                } catch (SQLException e) {
+                    if (counter.started || counter.cancelled()) {
+                        throw e;
+                    }
+                    // 还没有读取数据，通常是服务端禁用了本地文件导入，改用INSERT
+                    e.printStackTrace();
+                    nativeError = e;
+                }
+            }
+
+            long rows = loadWithInserts(config, table, columns, counter);
+            result.put("success", true);
+            result.put("rows", rows);
+            result.put("method", "INSERT");
+            if (nativeError != null) {
+                result.put("warning", nativeError.getMessage());
+            }
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            result.put("success", false);
+            if (counter.cancelled()) {
+                result.put("cancelled", true);
+                result.put("error", "导入已取消");
+            } else {
+                result.put("error", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 通过LOAD DATA LOCAL INFILE导入
+     * 本地文件导入需要在连接建立时开启，使用单独的连接而不是连接池中的连接。
+     * LOCAL隐含IGNORE，重复键和类型转换错误只产生警告，有跳过的行或警告时按失败回滚，与INSERT和COPY一致。
+     * 二进制列在CSV中是十六进制文本，先读入用户变量再用UNHEX解码
+     */
+    private static long loadMysql(ConnectionConfig config, String table, List<String> columns, RowCounter counter)
+            throws SQLException {
+        Map<String, String> properties = Collections.singletonMap("allowLoadLocalInfile", "true");
+        try (Connection conn = DatabaseService.openConnection(config, properties)) {
+            if (config.getDatabase() != null && !config.getDatabase().isEmpty()) {
+                conn.setCatalog(config.getDatabase());
+            }
+            List<Integer> types = getColumnTypes(conn, table, String.join(", ", columns), columns.size());
+            StringBuilder columnList = new StringBuilder();
+            StringBuilder binaryColumns = new StringBuilder();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    columnList.append(", ");
+                }
+                if (isBinaryType(types.get(i))) {
+                    String variable = "@v" + (i + 1);
+                    columnList.append(variable);
+                    binaryColumns.append(binaryColumns.length() == 0 ? " SET " : ", ")
+                            .append(columns.get(i)).append(" = UNHEX(").append(variable).append(')');
+                } else {
+                    columnList.append(columns.get(i));
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                // 数据由输入流提供，文件名不会被读取
+                stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(new TextRowInputStream(counter));
+                stmt.execute("LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + table
+                        + " CHARACTER SET utf8mb4 (" + columnList + ")" + binaryColumns);
+                counter.checkFailure();
+                checkLoadWarnings(stmt, counter.rows);
+                conn.commit();
+                return counter.rows;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 检查LOAD DATA是否导入了全部行
+     * @throws SQLException 有行被跳过或有警告时抛出，包含第一条警告
+     */
+    private static void checkLoadWarnings(Statement stmt, long rows) throws SQLException {
+        long loaded = stmt.getLargeUpdateCount();
+        SQLWarning warning = stmt.getWarnings();
+        if (loaded == rows && warning == null) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("读取 ").append(rows).append(" 行，导入 ")
+                .append(loaded).append(" 行");
+        if (warning != null) {
+            int count = 0;
+            for (SQLWarning next = warning; next != null; next = next.getNextWarning()) {
+                count++;
+            }
+            message.append("，").append(count).append(" 条警告，第一条: ").append(warning.getMessage());
+        }
+        throw new SQLException(message.toString(), warning);
+    }
+
+    /**
+     * 通过COPY FROM STDIN导入
+     */
+    private static long loadPostgresql(ConnectionConfig config, String table, String columnList, RowCounter counter)
+            throws SQLException {
+        try (Connection conn = DatabaseService.getConnection(config)) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                conn.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY " + table + " (" + columnList + ") FROM STDIN", new TextRowInputStream(counter));
+                counter.checkFailure();
+                conn.commit();
+                return counter.rows;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e instanceof SQLException ? (SQLException) e : new SQLException(e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 用预编译INSERT分批导入，参数按列类型绑定，由驱动把文本转换为列的类型。
+     * 二进制列的十六进制文本先解码为字节；SQLite的列类型不限制实际值，按原文本导入
+     */
+    private static long loadWithInserts(ConnectionConfig config, String table, List<String> columns,
+                                        RowCounter counter) throws SQLException, IOException {
+        int batchSize = ((Number) ConnectionManager.getSetting("bulkLoadBatchSize", 1000)).intValue();
+        String columnList = String.join(", ", columns);
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(columnList).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        try (Connection conn = DatabaseService.getConnection(config)) {
+            List<Integer> types = getColumnTypes(conn, table, columnList, columns.size());
+            boolean decodeBinary = !"sqlite".equalsIgnoreCase(config.getDatabaseType());
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            StatementRegistry.RunningStatement running = null;
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                running = StatementRegistry.register(config, stmt, sql.toString());
+                int pending = 0;
+                List<String> row;
+                while ((row = counter.nextRow()) != null) {
+                    List<Object> values = new ArrayList<>(row);
+                    for (int i = 0; decodeBinary && i < values.size(); i++) {
+                        if (values.get(i) != null && isBinaryType(types.get(i))) {
+                            values.set(i, decodeHex(row.get(i)));
+                        }
+                    }
+                    new DmlStatement(sql.toString(), values, types).bind(stmt);
+                    stmt.addBatch();
+                    if (++pending >= batchSize) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return counter.rows;
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                StatementRegistry.unregister(running);
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 读取各列的类型，读取失败时按未知类型绑定
+     * MySQL的BIT(n)在n大于1时按二进制处理，BIT(1)和TINYINT(1)仍是BIT
+     */
+    private static List<Integer> getColumnTypes(Connection conn, String table, String columnList, int count) {
+        List<Integer> types = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + columnList + " FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= count; i++) {
+                int type = metaData.getColumnType(i);
+                types.add(type == Types.BIT && metaData.getPrecision(i) > 1 ? Types.VARBINARY : type);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            types.clear();
+            for (int i = 0; i < count; i++) {
+                types.add(Types.OTHER);
+            }
+        }
+        return types;
+    }
+
+    private static boolean isBinaryType(int type) {
+        return type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+    }
+
+    /**
+     * 解码CsvExporter写出的十六进制文本，可以带PostgreSQL bytea的\x前缀
+     * @throws SQLException 不是有效的十六进制时抛出
+     */
+    private static byte[] decodeHex(String text) throws SQLException {
+        int start = text.startsWith("\\x") ? 2 : 0;
+        if ((text.length() - start) % 2 != 0) {
+            throw new SQLException("二进制列的值不是有效的十六进制: " + text);
+        }
+        byte[] bytes = new byte[(text.length() - start) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(text.charAt(start + i * 2), 16);
+            int low = Character.digit(text.charAt(start + i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new SQLException("二进制列的值不是有效的十六进制: " + text);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * 补齐或截断到列数，CSV中缺少的字段作为NULL
+     */
+    private static List<String> fitRow(List<String> row, int columnCount) {
+        while (row.size() < columnCount) {
+            row.add(null);
+        }
+        return row.size() > columnCount ? row.subList(0, columnCount) : row;
+    }
+
+    /**
+     * 读取数据行并计数、报告进度和检查取消
+     */
+    private static final class RowCounter {
+        private final RowSource source;
+        private final LongConsumer progress;
+        private final BooleanSupplier cancelled;
+        private int columnCount = -1;
+        // 已开始读取数据行，数据来源不能重读，之后出错不能再换一种方式导入
+        private boolean started;
+        private long rows;
+        // 在驱动读取输入流时发生的错误，驱动可能不会原样抛出
+        private IOException failure;
+
+        RowCounter(RowSource source, LongConsumer progress, BooleanSupplier cancelled) {
+            this.source = source;
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        List<String> nextRow() throws IOException {
+            started = true;
+            if (cancelled()) {
+                failure = new IOException("导入已取消");
+                throw failure;
+            }
+            if (columnCount < 0) {
+                columnCount = source.getColumns().size();
+            }
+            List<String> row;
+            try {
+                row = source.nextRow();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            if (row != null) {
+                row = fitRow(row, columnCount);
+                rows++;
+                if (progress != null && rows % PROGRESS_INTERVAL == 0) {
+                    progress.accept(rows);
+                }
+            }
+            return row;
+        }
+
+        boolean cancelled() {
+            return cancelled != null && cancelled.getAsBoolean();
+        }
+
+        /**
+         * 驱动吞掉了输入流的错误时，不能提交只导入了一部分的数据
+         */
+        void checkFailure() throws SQLException {
+            if (failure != null) {
+                throw new SQLException(failure.getMessage(), failure);
+            }
+        }
+    }
+
+    /**
+     * 把数据行编码为LOAD DATA和COPY共用的文本格式
+     * 字段以制表符分隔，行以换行结束，NULL写作\N，反斜杠、制表符和换行用反斜杠转义，字符集为UTF-8
+     */
+    private static final class TextRowInputStream extends InputStream {
+        private final RowCounter counter;
+        private final StringBuilder line = new StringBuilder();
+        private byte[] buffer = new byte[0];
+        private int position;
+        private boolean finished;
+
+        TextRowInputStream(RowCounter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position >= buffer.length) {
+                if (finished || !fill()) {
+                    finished = true;
+                    return -1;
+                }
+            }
+            int count = Math.min(length, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * 编码若干行到缓冲区
+         * @return 没有更多数据时返回false
+         */
+        private boolean fill() throws IOException {
+            line.setLength(0);
+            List<String> row;
+            // 每次编码约64KB，减少小块写入
+            while (line.length() < 64 * 1024 && (row = counter.nextRow()) != null) {
+                for (int i = 0; i < row.size(); i++) {
+                    if (i > 0) {
+                        line.append('\t');
+                    }
+                    appendValue(row.get(i));
+                }
+                line.append('\n');
+            }
+            if (line.length() == 0) {
+                return false;
+            }
+            buffer = line.toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+
+        private void appendValue(String value) {
+            if (value == null) {
+                line.append("\\N");
+                return;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.utils.CsvWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * 把查询结果直接从ResultSet流式写入CSV文件
+ * 不经过结果表格，数据逐行读取后立即写出，内存占用与结果行数无关。
+ * 各列按类型选择读取和格式化方式，数字和日期直接追加到行缓冲，不生成中间对象
+ */
+public final class CsvExporter {
+    private static final int FETCH_SIZE = 1000;
+    // 每写出多少行报告一次进度、检查一次取消
+    private static final int PROGRESS_INTERVAL = 10000;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private CsvExporter() {
+    }
+
+    /**
+     * 执行查询并导出为CSV文件，第一行为列名
+     * @param config 连接配置
+     * @param sql 查询语句
+     * @param target 目标文件，按扩展名压缩
+     * @param progress 接收已写出的行数，可以为null
+     * @param cancelled 返回true时停止导出，可以为null
+     * @return 导出结果，包含success、rows，失败时包含error；失败或取消时删除目标文件
+     */
+    public static Map<String, Object> export(ConnectionConfig config, String sql, Path target,
+                                             LongConsumer progress, BooleanSupplier cancelled) {
+        Map<String, Object> result = new HashMap<>();
+        StatementRegistry.RunningStatement running = null;
+        long rows = 0;
+        boolean stopped = false;
+
+        try (Connection conn = DatabaseService.getConnection(config)) {
+            boolean autoCommit = conn.getAutoCommit();
+            try (Statement stmt = DatabaseService.createStreamingStatement(conn, config.getDatabaseType(), sql,
+                    Collections.emptyList(), FETCH_SIZE);
+                 CsvWriter writer = CsvWriter.open(target)) {
+                running = StatementRegistry.register(config, stmt, sql);
+                ResultSet rs = stmt.executeQuery(sql);
+                try {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    ColumnFormatter[] formatters = new ColumnFormatter[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        writer.writeText(metaData.getColumnLabel(i));
+                        formatters[i - 1] = getFormatter(config, metaData, i);
+                    }
+                    writer.endRow();
+
+                    while (rs.next()) {
+                        for (int i = 0; i < columnCount; i++) {
+                            formatters[i].write(rs, i + 1, writer);
+                        }
+                        writer.endRow();
+                        if (++rows % PROGRESS_INTERVAL == 0) {
+                            if (cancelled != null && cancelled.getAsBoolean()) {
+                                // 取消语句，避免驱动在关闭时读完剩余的流式数据
+                                stopped = true;
+                                try {
+                                    stmt.cancel();
+                                } catch (SQLException e) {
+                                    // 部分驱动不支持取消，忽略
+                                }
+                                break;
+                            }
+                            if (progress != null) {
+                                progress.accept(rows);
+                            }
+                        }
+                    }
+                } finally {
+                    try {
+                        rs.close();
+                    } catch (SQLException e) {
+                        // 语句被取消后关闭结果集可能报错
+                        if (!stopped && !running.isCancelled()) {
+                            throw e;
+                        }
+                    }
+                }
+            } finally {
+                if (conn.getAutoCommit() != autoCommit) {
+                    // PostgreSQL游标模式关闭了自动提交，归还连接前恢复
+                    try {
+                        conn.rollback();
+                    } catch (SQLException e) {
+                        // 忽略回滚错误
+                    }
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+
+            if (stopped || running.isCancelled()) {
+                deleteQuietly(target);
+                result.put("success", false);
+                result.put("cancelled", true);
+                result.put("error", "导出已取消");
+            } else {
+                result.put("success", true);
+                result.put("rows", rows);
+            }
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            deleteQuietly(target);
+            result.put("success", false);
+            if (running != null && running.isCancelled()) {
+                result.put("cancelled", true);
+                result.put("error", "导出已取消");
+            } else {
+                result.put("error", e.getMessage());
+            }
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+        return result;
+    }
+
+    /**
+     * 按列类型选择格式化方式
+     */
+    private static ColumnFormatter getFormatter(ConnectionConfig config, ResultSetMetaData metaData, int column)
+            throws SQLException {
+        if ("sqlite".equalsIgnoreCase(config.getDatabaseType())) {
+            // SQLite的列类型只是声明，实际值可能是任意类型，按数字读取会把文本变成0
+            return CsvExporter::writeString;
+        }
+        switch (DatabaseService.getStorageType(metaData, column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return CsvExporter::writeLong;
+            case Types.REAL:
+                return CsvExporter::writeFloat;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return CsvExporter::writeDouble;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return CsvExporter::writeDecimal;
+            case Types.BOOLEAN:
+                return getBooleanFormatter(config);
+            case Types.BIT:
+                // BIT(n)在n大于1时是二进制数据
+                return metaData.getPrecision(column) <= 1 ? getBooleanFormatter(config) : getBinaryFormatter(config);
+            case Types.DATE:
+                return CsvExporter::writeDate;
+            case Types.TIMESTAMP:
+                return CsvExporter::writeTimestamp;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return getBinaryFormatter(config);
+            default:
+                // TIME可能超过24小时，带时区的类型各驱动表示不同，都按数据库返回的文本写出
+                return CsvExporter::writeString;
+        }
+    }
+
+    /**
+     * MySQL的BOOLEAN就是TINYINT(1)，LOAD DATA只接受数字，写为1/0；其他数据库写为true/false
+     */
+    private static ColumnFormatter getBooleanFormatter(ConnectionConfig config) {
+        return "mysql".equalsIgnoreCase(config.getDatabaseType())
+                ? CsvExporter::writeBooleanNumber : CsvExporter::writeBoolean;
+    }
+
+    /**
+     * PostgreSQL的COPY把不带\x前缀的bytea文本当作转义格式，写为带前缀的十六进制；其他数据库写为纯十六进制，
+     * 由BulkLoader导入时解码
+     */
+    private static ColumnFormatter getBinaryFormatter(ConnectionConfig config) {
+        return "postgresql".equalsIgnoreCase(config.getDatabaseType())
+                ? CsvExporter::writeBytea : CsvExporter::writeBinary;
+    }
+
+    private static void writeString(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        String value = rs.getString(column);
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeText(value);
+        }
+    }
+
+    private static void writeLong(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            writer.writeNull();
+        } else {
+            writer.beginField().append(value);
+        }
+    }
+
+    private static void writeFloat(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        float value = rs.getFloat(column);
+        if (rs.wasNull()) {
+            writer.writeNull();
+        } else {
+            writer.beginField().append(value);
+        }
+    }
+
+    private static void writeDouble(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            writer.writeNull();
+        } else {
+            writer.beginField().append(value);
+        }
+    }
+
+    private static void writeDecimal(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            // 不使用科学计数法
+            writer.beginField().append(value.toPlainString());
+        }
+    }
+
+    private static void writeBoolean(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        if (rs.wasNull()) {
+            writer.writeNull();
+        } else {
+            writer.beginField().append(value);
+        }
+    }
+
+    private static void writeBooleanNumber(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        if (rs.wasNull()) {
+            writer.writeNull();
+        } else {
+            writer.beginField().append(value ? '1' : '0');
+        }
+    }
+
+    private static void writeDate(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        Date value = rs.getDate(column);
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            appendDate(writer.beginField(), value.toLocalDate());
+        }
+    }
+
+    /**
+     * 写为yyyy-MM-dd HH:mm:ss，有小数秒时追加去掉末尾0的小数部分
+     */
+    private static void writeTimestamp(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        if (value == null) {
+            writer.writeNull();
+            return;
+        }
+        LocalDateTime time = value.toLocalDateTime();
+        StringBuilder out = writer.beginField();
+        appendDate(out, time.toLocalDate());
+        out.append(' ');
+        appendPadded(out, time.getHour(), 2);
+        out.append(':');
+        appendPadded(out, time.getMinute(), 2);
+        out.append(':');
+        appendPadded(out, time.getSecond(), 2);
+        int nanos = time.getNano();
+        if (nanos > 0) {
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            out.append('.');
+            appendPadded(out, nanos, digits);
+        }
+    }
+
+    /**
+     * 二进制数据写为十六进制
+     */
+    private static void writeBinary(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        byte[] value = rs.getBytes(column);
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            appendHex(writer.beginField(), value);
+        }
+    }
+
+    /**
+     * PostgreSQL的bytea写为\x开头的十六进制
+     */
+    private static void writeBytea(ResultSet rs, int column, CsvWriter writer) throws SQLException {
+        byte[] value = rs.getBytes(column);
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            appendHex(writer.beginField().append("\\x"), value);
+        }
+    }
+
+    private static void appendHex(StringBuilder out, byte[] value) {
+        for (byte b : value) {
+            out.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
+    private static void appendDate(StringBuilder out, LocalDate date) {
+        appendPadded(out, date.getYear(), 4);
+        out.append('-');
+        appendPadded(out, date.getMonthValue(), 2);
+        out.append('-');
+        appendPadded(out, date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * 追加非负整数，不足位数时在前面补0
+     */
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+
+    private static void deleteQuietly(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读取当前行的一列并写入CSV
+     */
+    private interface ColumnFormatter {
+        void write(ResultSet rs, int column, CsvWriter writer) throws SQLException;
+    }
+}
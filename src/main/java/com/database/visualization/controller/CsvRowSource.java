@@ -0,0 +1,135 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.utils.CompressionCodec;
+import com.database.visualization.utils.CompressionCodecs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从CSV文件读取数据行
+ * 第一行是列名；字段按RFC 4180解析，引号内可以包含逗号、引号和换行。
+ * 没有引号的空字段作为NULL，带引号的空字段作为空字符串，与表数据导出的格式一致
+ */
+public class CsvRowSource implements RowSource {
+    private static final int NO_PUSHBACK = -2;
+
+    private final Reader reader;
+    private List<String> columns;
+    // 判断\r之后是否是\n时多读的字符
+    private int pushback = NO_PUSHBACK;
+
+    public CsvRowSource(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * 打开CSV文件，按扩展名识别的压缩文件边读边解压
+     */
+    public static CsvRowSource open(Path file, Charset charset) throws IOException {
+        CompressionCodec codec = CompressionCodecs.forFile(file);
+        if (codec == null) {
+            return new CsvRowSource(Files.newBufferedReader(file, charset));
+        }
+        return new CsvRowSource(new InputStreamReader(codec.decompress(Files.newInputStream(file)), charset));
+    }
+
+    @Override
+    public List<String> getColumns() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IOException("CSV文件为空");
+            }
+            columns = new ArrayList<>();
+            for (String column : header) {
+                // 去掉带BOM的UTF-8文件开头的BOM
+                columns.add(column == null ? "" : column.replace("\uFEFF", "").trim());
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public List<String> nextRow() throws IOException {
+        // 多列时跳过空行；只有一列时空行是该列为NULL的一行，CsvWriter就是这样写出的
+        boolean skipBlank = getColumns().size() > 1;
+        List<String> row;
+        do {
+            row = readRecord();
+        } while (skipBlank && row != null && row.size() == 1 && row.get(0) == null);
+        return row;
+    }
+
+    /**
+     * 读取一条记录，空行返回只有一个NULL字段的记录
+     * @return 字段列表，文件结束时返回null
+     */
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+
+        while (true) {
+            if (inQuotes) {
+                if (c < 0) {
+                    throw new IOException("CSV文件在引号内结束");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == ',' || c == '\n' || c == '\r' || c < 0) {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+                if (c != ',') {
+                    // \r\n作为一个换行
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pushback = next;
+                        }
+                    }
+                    return fields;
+                }
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != NO_PUSHBACK) {
+            int c = pushback;
+            pushback = NO_PUSHBACK;
+            return c;
+        }
+        return reader.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,19 +1,39 @@
 package com.database.visualization.controller;
 
+import com.database.visualization.model.ColumnarResult;
 import com.database.visualization.model.ConnectionConfig;
-import com.zaxxer.hikari.HikariConfig;
+import com.database.visualization.model.PoolProfile;
+import com.database.visualization.model.SchemaMetadata;
+import com.database.visualization.model.SpilledResult;
+import com.database.visualization.utils.ConnectionManager;
 import com.zaxxer.hikari.HikariDataSource;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.lang.reflect.Method;
 
 /**
  * 数据库服务，用于管理连接和执行查询
  */
 public class DatabaseService {
-    private static final Map<String, HikariDataSource> dataSources = new HashMap<>();
-    private static final Map<String, Object> redisConnections = new HashMap<>();
+    // 连接池和Redis连接会被多个后台线程同时获取，按key原子创建
+    private static final Map<String, HikariDataSource> dataSources = new ConcurrentHashMap<>();
+    private static final Map<String, Object> redisConnections = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> databaseVersions = new ConcurrentHashMap<>();
+    private static final Pattern USE_STATEMENT = Pattern.compile("(?i)^\\s*use\\s+[`\\[\"]?([^`\\]\"\\s;]+)[`\\]\"]?\\s*;?\\s*$");
+
+    // 关闭连接池要等待活动连接归还，放到后台执行，不阻塞调用线程
+    private static final ExecutorService closeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "connection-closer");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     /**
      * 测试数据库连接
@@ -24,8 +44,8 @@ public class DatabaseService {
             return testRedisConnection(config);
         }
         
-        try (Connection conn = DriverManager.getConnection(
-                config.getUrl(), config.getUsername(), config.getPassword())) {
+        // 带上连接池使用的驱动属性，属性写错时测试连接即可发现
+        try (Connection conn = openConnection(config, Collections.emptyMap())) {
             return conn.isValid(3);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -33,6 +53,25 @@ public class DatabaseService {
         }
     }
     
+    /**
+     * 不经过连接池打开一个连接，用于需要特殊驱动属性的操作
+     * 使用连接池的驱动属性，extraProperties中的属性覆盖同名属性；调用方负责关闭连接
+     * @param config 连接配置
+     * @param extraProperties 额外的驱动属性
+     */
+    static Connection openConnection(ConnectionConfig config, Map<String, String> extraProperties) throws SQLException {
+        Properties properties = new Properties();
+        properties.putAll(getPoolProfile(config).getDataSourceProperties());
+        properties.putAll(extraProperties);
+        if (config.getUsername() != null) {
+            properties.setProperty("user", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            properties.setProperty("password", config.getPassword());
+        }
+        return DriverManager.getConnection(config.getUrl(), properties);
+    }
+    
     /**
      * 测试Redis连接
      */
@@ -82,99 +121,152 @@ public class DatabaseService {
             throw new SQLException("Redis不支持JDBC连接");
         }
         
-        String id = config.getId();
-        String dbKey = id + ":" + config.getDatabase(); // 使用ID和数据库名称组合作为key
+        // MySQL和SQL Server同一服务器共用一个连接池，取出连接时切换到配置的数据库；
+        // PostgreSQL的连接绑定单个数据库，SQLite的数据库是文件，仍按数据库分别建池
+        boolean switchCatalog = supportsCatalogSwitch(config);
+        String poolKey = switchCatalog ? config.getId() : config.getId() + ":" + config.getDatabase();
         
-        // 如果该数据库的连接池不存在，创建新的连接池
-        if (!dataSources.containsKey(dbKey)) {
-            // 如果存在旧的连接池（不同数据库），先关闭它
-            if (dataSources.containsKey(id)) {
-                HikariDataSource oldDataSource = dataSources.get(id);
-                dataSources.remove(id);
-                try {
-                    oldDataSource.close();
-                } catch (Exception e) {
-                    // 忽略关闭错误
+        // 只创建未启动的连接池，首次获取连接时在该连接池内部加锁启动，不占用映射的锁
+        HikariDataSource dataSource = dataSources.computeIfAbsent(poolKey, key -> createDataSource(config));
+        Connection conn = dataSource.getConnection();
+        
+        String database = config.getDatabase();
+        if (switchCatalog && database != null && !database.isEmpty()) {
+            try {
+                if (!database.equals(conn.getCatalog())) {
+                    // 连接归还时连接池会把修改过的catalog恢复为连接池的默认值
+                    conn.setCatalog(database);
                 }
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
             }
-            
-            HikariConfig hikariConfig = new HikariConfig();
-            
-            // 根据当前数据库名称动态构建 JDBC URL
-            String originalUrl = config.getUrl();
-            String databaseName = config.getDatabase();
-            
-            // 根据数据库类型构建正确的 URL
-            if ("mysql".equalsIgnoreCase(config.getDatabaseType())) {
-                // 处理MySQL URL: jdbc:mysql://host:port/database?params
-                int dbStart = originalUrl.indexOf("/", 13); // 跳过jdbc:mysql://
-                if (dbStart > 0) {
-                    int paramStart = originalUrl.indexOf("?", dbStart);
-                    if (paramStart > 0) {
-                        // URL 带参数: jdbc:mysql://host:port/olddb?params
-                        String baseUrl = originalUrl.substring(0, dbStart + 1) + databaseName + originalUrl.substring(paramStart);
-                        hikariConfig.setJdbcUrl(baseUrl);
-                    } else {
-                        // URL 不带参数: jdbc:mysql://host:port/olddb
-                        String baseUrl = originalUrl.substring(0, dbStart + 1) + databaseName;
-                        hikariConfig.setJdbcUrl(baseUrl);
-                    }
+        }
+        return conn;
+    }
+    
+    /**
+     * 是否可以在同一连接上切换数据库
+     */
+    private static boolean supportsCatalogSwitch(ConnectionConfig config) {
+        String databaseType = config.getDatabaseType().toLowerCase();
+        return "mysql".equals(databaseType) || "sqlserver".equals(databaseType);
+    }
+    
+    /**
+     * 获取连接的连接池配置，未配置时使用数据库类型的默认配置
+     */
+    public static PoolProfile getPoolProfile(ConnectionConfig config) {
+        return config.getPoolProfile() != null
+                ? config.getPoolProfile() : PoolProfile.defaultFor(config.getDatabaseType());
+    }
+    
+    /**
+     * 创建连接池，连接池在第一次获取连接时才启动
+     */
+    private static HikariDataSource createDataSource(ConnectionConfig config) {
+        HikariDataSource dataSource = new HikariDataSource();
+        
+        // 根据当前数据库名称动态构建 JDBC URL
+        String originalUrl = config.getUrl();
+        String databaseName = config.getDatabase();
+        
+        // 根据数据库类型构建正确的 URL
+        if ("mysql".equalsIgnoreCase(config.getDatabaseType())) {
+            // 处理MySQL URL: jdbc:mysql://host:port/database?params
+            int dbStart = originalUrl.indexOf("/", 13); // 跳过jdbc:mysql://
+            if (dbStart > 0) {
+                int paramStart = originalUrl.indexOf("?", dbStart);
+                if (paramStart > 0) {
+                    // URL 带参数: jdbc:mysql://host:port/olddb?params
+                    String baseUrl = originalUrl.substring(0, dbStart + 1) + databaseName + originalUrl.substring(paramStart);
+                    dataSource.setJdbcUrl(baseUrl);
                 } else {
-                    // 如果URL格式不标准，使用原始URL
-                    hikariConfig.setJdbcUrl(originalUrl);
+                    // URL 不带参数: jdbc:mysql://host:port/olddb
+                    String baseUrl = originalUrl.substring(0, dbStart + 1) + databaseName;
+                    dataSource.setJdbcUrl(baseUrl);
                 }
             } else {
-                // 其他数据库类型使用原始URL
-                hikariConfig.setJdbcUrl(originalUrl);
+                // 如果URL格式不标准，使用原始URL
+                dataSource.setJdbcUrl(originalUrl);
             }
-            
-            hikariConfig.setUsername(config.getUsername());
-            hikariConfig.setPassword(config.getPassword());
-            hikariConfig.setMaximumPoolSize(10);
-            hikariConfig.setMinimumIdle(2);
-            hikariConfig.setConnectionTimeout(30000);
-            hikariConfig.setIdleTimeout(600000);
-            hikariConfig.setMaxLifetime(1800000);
-            
-            HikariDataSource dataSource = new HikariDataSource(hikariConfig);
-            dataSources.put(dbKey, dataSource); // 使用新的组合key存储
+        } else {
+            // 其他数据库类型使用原始URL
+            dataSource.setJdbcUrl(originalUrl);
         }
         
-        return dataSources.get(dbKey).getConnection();
+        if (supportsCatalogSwitch(config) && databaseName != null && !databaseName.isEmpty()) {
+            // 连接池的默认catalog，切换过数据库的连接归还时恢复为该值
+            dataSource.setCatalog(databaseName);
+        }
+        
+        dataSource.setUsername(config.getUsername());
+        dataSource.setPassword(config.getPassword());
+        
+        PoolProfile profile = getPoolProfile(config);
+        dataSource.setMaximumPoolSize(profile.getMaximumPoolSize());
+        dataSource.setMinimumIdle(Math.min(profile.getMinimumIdle(), profile.getMaximumPoolSize()));
+        dataSource.setConnectionTimeout(30000);
+        dataSource.setIdleTimeout(profile.getIdleTimeoutSeconds() * 1000L);
+        dataSource.setMaxLifetime(1800000);
+        for (Map.Entry<String, String> property : profile.getDataSourceProperties().entrySet()) {
+            dataSource.addDataSourceProperty(property.getKey(), property.getValue());
+        }
+        return dataSource;
     }
     
     /**
      * 获取Redis连接
      */
     public static Object getRedisConnection(ConnectionConfig config) throws Exception {
-        String id = config.getId();
-        if (!redisConnections.containsKey(id)) {
-            // 通过反射创建Jedis实例
-            Class<?> jedisClass = Class.forName("redis.clients.jedis.Jedis");
-            Object jedis = jedisClass.getConstructor(String.class, int.class)
-                    .newInstance(config.getHost(), config.getPort());
-            
-            // 如果有密码，进行认证
-            if (config.getPassword() != null && !config.getPassword().isEmpty()) {
-                jedisClass.getMethod("auth", String.class)
-                        .invoke(jedis, config.getPassword());
-            }
-            
-            // 选择数据库
-            int dbIndex = 0;
-            if (config.getDatabase() != null && !config.getDatabase().isEmpty()) {
+        try {
+            return redisConnections.computeIfAbsent(config.getId(), id -> {
                 try {
-                    dbIndex = Integer.parseInt(config.getDatabase());
-                } catch (NumberFormatException e) {
-                    // 忽略错误，使用默认数据库0
+                    return createRedisConnection(config);
+                } catch (Exception e) {
+                    throw new ConnectionCreationException(e);
                 }
-            }
-            jedisClass.getMethod("select", int.class).invoke(jedis, dbIndex);
-            
-            redisConnections.put(id, jedis);
+            });
+        } catch (ConnectionCreationException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+    
+    /**
+     * 创建Redis连接
+     */
+    private static Object createRedisConnection(ConnectionConfig config) throws Exception {
+        // 通过反射创建Jedis实例
+        Class<?> jedisClass = Class.forName("redis.clients.jedis.Jedis");
+        Object jedis = jedisClass.getConstructor(String.class, int.class)
+                .newInstance(config.getHost(), config.getPort());
+        
+        // 如果有密码，进行认证
+        if (config.getPassword() != null && !config.getPassword().isEmpty()) {
+            jedisClass.getMethod("auth", String.class)
+                    .invoke(jedis, config.getPassword());
         }
         
-        return redisConnections.get(id);
+        // 选择数据库
+        int dbIndex = 0;
+        if (config.getDatabase() != null && !config.getDatabase().isEmpty()) {
+            try {
+                dbIndex = Integer.parseInt(config.getDatabase());
+            } catch (NumberFormatException e) {
+                // 忽略错误，使用默认数据库0
+            }
+        }
+        jedisClass.getMethod("select", int.class).invoke(jedis, dbIndex);
+        return jedis;
+    }
+    
+    /**
+     * 在computeIfAbsent中传递创建连接时的受检异常
+     */
+    private static final class ConnectionCreationException extends RuntimeException {
+        ConnectionCreationException(Exception cause) {
+            super(cause);
+        }
     }
     
     /**
@@ -182,33 +274,19 @@ public class DatabaseService {
      */
     public static void closeConnection(String connectionId) {
         // 关闭所有与该连接ID相关的连接池
-        List<String> keysToRemove = new ArrayList<>();
-        
-        for (String key : dataSources.keySet()) {
-            if (key.startsWith(connectionId + ":") || key.equals(connectionId)) {
-                HikariDataSource dataSource = dataSources.get(key);
-                try {
-                    dataSource.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-                keysToRemove.add(key);
+        for (Map.Entry<String, HikariDataSource> entry : dataSources.entrySet()) {
+            String key = entry.getKey();
+            if ((key.startsWith(connectionId + ":") || key.equals(connectionId))
+                    && dataSources.remove(key, entry.getValue())) {
+                closeAsync(entry.getValue());
             }
         }
+        databaseVersions.remove(connectionId);
+        MetadataCache.invalidate(connectionId);
         
-        // 移除已关闭的连接池
-        for (String key : keysToRemove) {
-            dataSources.remove(key);
-        }
-        
-        if (redisConnections.containsKey(connectionId)) {
-            try {
-                Object jedis = redisConnections.get(connectionId);
-                jedis.getClass().getMethod("close").invoke(jedis);
-                redisConnections.remove(connectionId);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        Object jedis = redisConnections.remove(connectionId);
+        if (jedis != null) {
+            closeAsync(jedis);
         }
     }
     
@@ -217,30 +295,52 @@ public class DatabaseService {
      */
     public static void closeAllConnections() {
         // 关闭所有数据源连接池
-        for (HikariDataSource dataSource : dataSources.values()) {
-            try {
-                dataSource.close();
-            } catch (Exception e) {
-                e.printStackTrace();
+        for (String key : dataSources.keySet()) {
+            HikariDataSource dataSource = dataSources.remove(key);
+            if (dataSource != null) {
+                closeAsync(dataSource);
             }
         }
-        dataSources.clear();
+        databaseVersions.clear();
+        MetadataCache.invalidateAll();
         
         // 关闭所有Redis连接
-        for (Object jedis : redisConnections.values()) {
+        for (String key : redisConnections.keySet()) {
+            Object jedis = redisConnections.remove(key);
+            if (jedis != null) {
+                closeAsync(jedis);
+            }
+        }
+    }
+    
+    /**
+     * 在后台关闭连接池或Redis连接
+     */
+    private static void closeAsync(Object connection) {
+        closeExecutor.execute(() -> {
             try {
-                jedis.getClass().getMethod("close").invoke(jedis);
+                if (connection instanceof HikariDataSource) {
+                    ((HikariDataSource) connection).close();
+                } else {
+                    connection.getClass().getMethod("close").invoke(connection);
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        }
-        redisConnections.clear();
+        });
     }
     
     /**
      * 获取数据库所有的schema
      */
     public static List<String> getSchemas(ConnectionConfig config) {
+        return new ArrayList<>(MetadataCache.get(config, "schemas", null, () -> loadSchemas(config)));
+    }
+    
+    /**
+     * 从数据库读取schema列表
+     */
+    private static List<String> loadSchemas(ConnectionConfig config) {
         List<String> schemas = new ArrayList<>();
         
         if ("redis".equalsIgnoreCase(config.getDatabaseType())) {
@@ -264,6 +364,13 @@ public class DatabaseService {
      * 获取指定schema下的所有表
      */
     public static List<String> getTables(ConnectionConfig config, String schema) {
+        return new ArrayList<>(MetadataCache.get(config, "tables", schema, () -> loadTables(config, schema)));
+    }
+    
+    /**
+     * 从数据库读取指定schema下的表
+     */
+    private static List<String> loadTables(ConnectionConfig config, String schema) {
         List<String> tables = new ArrayList<>();
         
         if ("redis".equalsIgnoreCase(config.getDatabaseType())) {
@@ -315,6 +422,19 @@ public class DatabaseService {
      * 获取表的所有列信息
      */
     public static List<Map<String, String>> getColumns(ConnectionConfig config, String schema, String table) {
+        List<Map<String, String>> cached = MetadataCache.get(config, "columns", schema + "." + table,
+                () -> loadColumns(config, schema, table));
+        List<Map<String, String>> columns = new ArrayList<>(cached.size());
+        for (Map<String, String> column : cached) {
+            columns.add(new HashMap<>(column));
+        }
+        return columns;
+    }
+    
+    /**
+     * 从数据库读取表的列信息
+     */
+    private static List<Map<String, String>> loadColumns(ConnectionConfig config, String schema, String table) {
         List<Map<String, String>> columns = new ArrayList<>();
         
         if ("redis".equalsIgnoreCase(config.getDatabaseType())) {
@@ -424,41 +544,264 @@ public class DatabaseService {
         Map<String, Object> result = new HashMap<>();
         List<String> columnNames = new ArrayList<>();
         List<List<Object>> data = new ArrayList<>();
+        SpilledResult spilled = null;
+        StatementRegistry.RunningStatement running = null;
         
         try (Connection conn = getConnection(config);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             Statement stmt = conn.createStatement()) {
+            running = StatementRegistry.register(config, stmt, sql);
+            ResultSet rs = stmt.executeQuery(sql);
             
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
+            int[] columnTypes = new int[columnCount];
             
             // 获取列名
             for (int i = 1; i <= columnCount; i++) {
                 columnNames.add(metaData.getColumnName(i));
+                columnTypes[i - 1] = getStorageType(metaData, i);
             }
             
-            // 获取数据
+            // 获取数据，估算占用超过内存预算后转存到磁盘
+            long memoryBudget = getResultMemoryBudget();
+            long estimatedBytes = 0;
             while (rs.next()) {
                 List<Object> row = new ArrayList<>();
                 for (int i = 1; i <= columnCount; i++) {
                     row.add(rs.getObject(i));
                 }
+                if (spilled != null) {
+                    spilled.appendRow(row);
+                    continue;
+                }
+                
                 data.add(row);
+                estimatedBytes += 16 + 8L * columnCount;
+                for (Object value : row) {
+                    estimatedBytes += ColumnarResult.estimateValueBytes(value);
+                }
+                if (estimatedBytes > memoryBudget) {
+                    try {
+                        spilled = new SpilledResult(columnNames, columnTypes);
+                        spilled.appendRows(data);
+                        data = new ArrayList<>();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        memoryBudget = Long.MAX_VALUE;
+                    }
+                }
             }
             
+            rs.close();
             result.put("success", true);
             result.put("columns", columnNames);
-            result.put("data", data);
+            result.put("data", spilled != null ? spilled.asRowList() : data);
+            result.put("spilled", spilled != null);
             
         } catch (SQLException e) {
             e.printStackTrace();
-            result.put("success", false);
-            result.put("error", e.getMessage());
+            if (spilled != null) {
+                spilled.close();
+            }
+            putExecutionError(result, config, running, e);
+        } finally {
+            StatementRegistry.unregister(running);
         }
         
         return result;
     }
     
+    /**
+     * 获取单个查询结果允许占用的堆内存字节数，超出后结果转存到磁盘临时文件
+     */
+    public static long getResultMemoryBudget() {
+        long megabytes = ((Number) ConnectionManager.getSetting("resultMemoryBudgetMB", 256)).longValue();
+        return megabytes > 0 ? megabytes * 1024 * 1024 : Long.MAX_VALUE;
+    }
+
+    /**
+     * 以流式方式执行SQL查询，按块将数据推送给接收器，内存中只保留当前数据块
+     * @param config 连接配置
+     * @param sql 查询语句
+     * @param chunkSize 每块行数
+     * @param maxRows 最多读取的行数，超出部分不再读取，小于等于0表示不限制
+     * @param consumer 数据块接收器
+     * @return 执行结果，包含success、columns、rowCount、truncated或error
+     */
+    public static Map<String, Object> executeStreamingQuery(ConnectionConfig config, String sql,
+                                                            int chunkSize, int maxRows, RowChunkConsumer consumer) {
+        return executeStreamingQuery(config, sql, Collections.emptyList(), chunkSize, maxRows, consumer);
+    }
+
+    /**
+     * 以流式方式执行带参数的SQL查询
+     * @param parameters 按顺序绑定到占位符的参数，为空时不使用预编译语句
+     */
+    public static Map<String, Object> executeStreamingQuery(ConnectionConfig config, String sql, List<Object> parameters,
+                                                            int chunkSize, int maxRows, RowChunkConsumer consumer) {
+        if ("redis".equalsIgnoreCase(config.getDatabaseType())) {
+            // Redis命令结果本身很小，直接整体推送
+            Map<String, Object> result = executeRedisQuery(config, sql);
+            if ((boolean) result.get("success")) {
+                List<List<Object>> data = (List<List<Object>>) result.remove("data");
+                consumer.onColumns((List<String>) result.get("columns"), null);
+                consumer.onRows(data);
+                result.put("rowCount", data.size());
+                result.put("truncated", false);
+            }
+            return result;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        List<String> columnNames = new ArrayList<>();
+        int rowCount = 0;
+        boolean truncated = false;
+        StatementRegistry.RunningStatement running = null;
+
+        try (Connection conn = getConnection(config)) {
+            boolean autoCommit = conn.getAutoCommit();
+            try (Statement stmt = createStreamingStatement(conn, config.getDatabaseType(), sql, parameters, chunkSize)) {
+                if (maxRows > 0) {
+                    // 多取一行用于判断结果是否被截断
+                    stmt.setMaxRows(maxRows + 1);
+                }
+                running = StatementRegistry.register(config, stmt, sql);
+
+                ResultSet rs = stmt instanceof PreparedStatement
+                        ? ((PreparedStatement) stmt).executeQuery() : stmt.executeQuery(sql);
+                boolean cancelled = false;
+                try {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+
+                    int[] columnTypes = new int[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        columnNames.add(metaData.getColumnName(i));
+                        columnTypes[i - 1] = getStorageType(metaData, i);
+                    }
+                    consumer.onColumns(columnNames, columnTypes);
+
+                    List<List<Object>> chunk = new ArrayList<>(chunkSize);
+                    while (rs.next()) {
+                        if (maxRows > 0 && rowCount >= maxRows) {
+                            // setMaxRows已在服务端限制行数，这里只会多出一行
+                            truncated = true;
+                            break;
+                        }
+
+                        List<Object> row = new ArrayList<>(columnCount);
+                        for (int i = 1; i <= columnCount; i++) {
+                            row.add(rs.getObject(i));
+                        }
+                        chunk.add(row);
+                        rowCount++;
+
+                        if (chunk.size() >= chunkSize) {
+                            if (!consumer.onRows(chunk)) {
+                                // 接收方不再需要数据，取消语句，避免驱动在关闭时读完剩余的流式数据
+                                chunk = null;
+                                truncated = true;
+                                cancelled = true;
+                                try {
+                                    stmt.cancel();
+                                } catch (SQLException e) {
+                                    // 部分驱动不支持取消，忽略
+                                }
+                                break;
+                            }
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+
+                    if (chunk != null && !chunk.isEmpty()) {
+                        consumer.onRows(chunk);
+                    }
+                } finally {
+                    try {
+                        rs.close();
+                    } catch (SQLException e) {
+                        // 语句被取消后关闭结果集可能报错，此时数据已经读取完毕
+                        if (!cancelled && !running.isCancelled()) {
+                            throw e;
+                        }
+                    }
+                }
+            } finally {
+                if (conn.getAutoCommit() != autoCommit) {
+                    // PostgreSQL游标模式关闭了自动提交，归还连接前恢复
+                    try {
+                        conn.rollback();
+                    } catch (SQLException e) {
+                        // 忽略回滚错误
+                    }
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+
+            result.put("success", true);
+            result.put("columns", columnNames);
+            result.put("rowCount", rowCount);
+            result.put("truncated", truncated);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            putExecutionError(result, config, running, e);
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取列的存储类型，无符号整数放大一级，避免超出有符号范围
+     */
+    static int getStorageType(ResultSetMetaData metaData, int column) throws SQLException {
+        int type = metaData.getColumnType(column);
+        if (type == Types.INTEGER || type == Types.BIGINT) {
+            boolean signed;
+            try {
+                signed = metaData.isSigned(column);
+            } catch (SQLException e) {
+                signed = true;
+            }
+            if (!signed) {
+                return type == Types.INTEGER ? Types.BIGINT : Types.NUMERIC;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 根据数据库类型创建适合流式读取的Statement
+     */
+    static Statement createStreamingStatement(Connection conn, String databaseType, String sql,
+                                              List<Object> parameters, int chunkSize) throws SQLException {
+        Statement stmt;
+        if (parameters.isEmpty()) {
+            stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        } else {
+            PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setObject(i + 1, parameters.get(i));
+            }
+            stmt = pstmt;
+        }
+
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            // MySQL驱动只有在fetchSize为Integer.MIN_VALUE时才会逐行流式读取
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        } else if ("postgresql".equalsIgnoreCase(databaseType)) {
+            // PostgreSQL只有在关闭自动提交时才会使用游标分批读取
+            conn.setAutoCommit(false);
+            stmt.setFetchSize(chunkSize);
+        } else {
+            stmt.setFetchSize(chunkSize);
+        }
+
+        return stmt;
+    }
+
     /**
      * 执行Redis查询
      */
@@ -703,24 +1046,246 @@ public class DatabaseService {
         }
         
         Map<String, Object> result = new HashMap<>();
+        StatementRegistry.RunningStatement running = null;
+        
+        Matcher useMatcher = USE_STATEMENT.matcher(sql);
+        if (supportsCatalogSwitch(config) && useMatcher.matches()) {
+            // 连接池中的连接共用，USE改为修改连接配置的数据库，之后取出的连接都会切换过去
+            try (Connection conn = getConnection(config)) {
+                conn.setCatalog(useMatcher.group(1));
+                config.setDatabase(useMatcher.group(1));
+                result.put("success", true);
+                result.put("affectedRows", 0);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                result.put("success", false);
+                result.put("error", e.getMessage());
+            }
+            return result;
+        }
         
         try (Connection conn = getConnection(config);
              Statement stmt = conn.createStatement()) {
+            running = StatementRegistry.register(config, stmt, sql);
             
             int affectedRows = stmt.executeUpdate(sql);
+            // 表结构变化后缓存的元数据不再可信
+            MetadataCache.invalidateIfDdl(config, sql);
             
             result.put("success", true);
             result.put("affectedRows", affectedRows);
             
         } catch (SQLException e) {
             e.printStackTrace();
-            result.put("success", false);
-            result.put("error", e.getMessage());
+            putExecutionError(result, config, running, e);
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 以预编译语句执行带参数的增删改语句
+     * @param config 连接配置
+     * @param statement 带参数的语句
+     * @return 执行结果，包含success、affectedRows或error
+     */
+    public static Map<String, Object> executeUpdate(ConnectionConfig config, DmlStatement statement) {
+        Map<String, Object> result = new HashMap<>();
+        StatementRegistry.RunningStatement running = null;
+        
+        try (Connection conn = getConnection(config);
+             PreparedStatement stmt = conn.prepareStatement(statement.getSql())) {
+            running = StatementRegistry.register(config, stmt, statement.getSql());
+            statement.bind(stmt);
+            
+            int affectedRows = stmt.executeUpdate();
+            
+            result.put("success", true);
+            result.put("affectedRows", affectedRows);
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            putExecutionError(result, config, running, e);
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 在一个事务中批量执行一组增删改语句，任一语句失败时全部回滚
+     * 语句先按删除、更新、插入的顺序分阶段，同一阶段内SQL相同的语句合并为一个批次，
+     * 各批次按SQL首次出现的顺序执行
+     * @param config 连接配置
+     * @param statements 要执行的语句
+     * @return 执行结果，包含success、affectedRows；失败时包含error和failedStatements（失败语句在参数列表中的下标）
+     */
+    public static Map<String, Object> executeChangeSet(ConnectionConfig config, List<DmlStatement> statements) {
+        Map<String, Object> result = new HashMap<>();
+        
+        // SQL -> 使用该SQL的语句下标，按阶段分别保持首次出现的顺序
+        List<Map<String, List<Integer>>> phases = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            phases.add(new LinkedHashMap<>());
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            String sql = statements.get(i).getSql();
+            String verb = sql.trim().toUpperCase();
+            int phase = verb.startsWith("DELETE") ? 0 : verb.startsWith("UPDATE") ? 1 : 2;
+            phases.get(phase).computeIfAbsent(sql, key -> new ArrayList<>()).add(i);
+        }
+        
+        int batchSize = ((Number) ConnectionManager.getSetting("changeSetBatchSize", 1000)).intValue();
+        ChangeSetProgress progress = new ChangeSetProgress();
+        
+        try (Connection conn = getConnection(config)) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long affectedRows = runChangeSet(conn, config, statements, phases, batchSize, null, progress);
+                conn.commit();
+                result.put("success", true);
+                result.put("affectedRows", affectedRows);
+            } catch (SQLException e) {
+                conn.rollback();
+                e.printStackTrace();
+                putExecutionError(result, config, progress.running, e);
+                
+                List<Integer> failed = progress.findFailedStatements(e);
+                if (failed.isEmpty() && progress.batchSql != null && !result.containsKey("cancelled")
+                        && !(e instanceof SQLTimeoutException)) {
+                    // 驱动没有报告批次中哪条语句失败，重放到出错的批次并逐条执行来定位
+                    failed = locateFailedStatement(conn, config, statements, phases, batchSize, progress.batchSql);
+                }
+                result.put("failedStatements", failed);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            putExecutionError(result, config, progress.running, e);
+            result.put("failedStatements", Collections.emptyList());
         }
         
         return result;
     }
     
+    /**
+     * 按分组批量执行语句，不提交
+     * @param singleSql 该SQL的批次逐条执行，为null时都按批次执行
+     * @return 影响的行数，驱动不返回行数的语句不计入
+     */
+    private static long runChangeSet(Connection conn, ConnectionConfig config, List<DmlStatement> statements,
+                                     List<Map<String, List<Integer>>> phases, int batchSize, String singleSql,
+                                     ChangeSetProgress progress) throws SQLException {
+        long affectedRows = 0;
+        for (Map<String, List<Integer>> phase : phases) {
+            for (Map.Entry<String, List<Integer>> group : phase.entrySet()) {
+                String sql = group.getKey();
+                int size = sql.equals(singleSql) ? 1 : Math.max(1, batchSize);
+                progress.batchSql = sql;
+                progress.batch = Collections.emptyList();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    progress.running = StatementRegistry.register(config, stmt, sql);
+                    List<Integer> indexes = group.getValue();
+                    for (int start = 0; start < indexes.size(); start += size) {
+                        progress.batch = indexes.subList(start, Math.min(start + size, indexes.size()));
+                        for (int index : progress.batch) {
+                            progress.binding = index;
+                            statements.get(index).bind(stmt);
+                            stmt.addBatch();
+                        }
+                        progress.binding = -1;
+                        for (int count : stmt.executeBatch()) {
+                            if (count > 0) {
+                                affectedRows += count;
+                            }
+                        }
+                    }
+                } finally {
+                    StatementRegistry.unregister(progress.running);
+                }
+            }
+        }
+        return affectedRows;
+    }
+    
+    /**
+     * 在事务中重放语句，出错的SQL逐条执行以找到失败的语句，结束后回滚
+     */
+    private static List<Integer> locateFailedStatement(Connection conn, ConnectionConfig config,
+                                                       List<DmlStatement> statements,
+                                                       List<Map<String, List<Integer>>> phases,
+                                                       int batchSize, String failedSql) {
+        ChangeSetProgress progress = new ChangeSetProgress();
+        try {
+            try {
+                runChangeSet(conn, config, statements, phases, batchSize, failedSql, progress);
+            } finally {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            if (failedSql.equals(progress.batchSql) || progress.binding >= 0) {
+                return progress.findFailedStatements(e);
+            }
+        }
+        return Collections.emptyList();
+    }
+    
+    /**
+     * 批量执行的进度，用于在出错时确定失败的语句
+     */
+    private static final class ChangeSetProgress {
+        private StatementRegistry.RunningStatement running;
+        private String batchSql;
+        private List<Integer> batch = Collections.emptyList();
+        private int binding = -1;
+        
+        /**
+         * 根据异常找出失败的语句
+         * 绑定参数出错时是正在绑定的语句；批次只有一条语句时就是该语句；
+         * 驱动遇到错误后停止执行时，失败的是第一条没有返回更新数的语句；继续执行时，返回EXECUTE_FAILED的语句都失败
+         */
+        private List<Integer> findFailedStatements(SQLException e) {
+            List<Integer> failed = new ArrayList<>();
+            if (binding >= 0) {
+                failed.add(binding);
+            } else if (batch.size() == 1) {
+                failed.add(batch.get(0));
+            } else if (e instanceof BatchUpdateException && ((BatchUpdateException) e).getUpdateCounts() != null) {
+                int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+                for (int i = 0; i < counts.length && i < batch.size(); i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        failed.add(batch.get(i));
+                    }
+                }
+                if (failed.isEmpty() && counts.length < batch.size()) {
+                    failed.add(batch.get(counts.length));
+                }
+            }
+            return failed;
+        }
+    }
+    
+    /**
+     * 填写执行失败的结果，区分用户取消和查询超时
+     */
+    private static void putExecutionError(Map<String, Object> result, ConnectionConfig config,
+                                          StatementRegistry.RunningStatement running, SQLException e) {
+        result.put("success", false);
+        if (running != null && running.isCancelled()) {
+            result.put("cancelled", true);
+            result.put("error", "执行已取消");
+        } else if (e instanceof SQLTimeoutException) {
+            result.put("error", "执行超时（超过 " + config.getQueryTimeout() + " 秒）: " + e.getMessage());
+        } else {
+            result.put("error", e.getMessage());
+        }
+    }
+    
     /**
      * 执行Redis命令
      */
@@ -991,12 +1556,82 @@ public class DatabaseService {
         }
     }
 
+    /**
+     * 获取已缓存的数据库主版本号，不访问数据库
+     * @return 主版本号，尚未读取过时返回0
+     */
+    public static int getCachedDatabaseMajorVersion(ConnectionConfig config) {
+        Integer version = databaseVersions.get(config.getId());
+        return version != null ? version : 0;
+    }
+
+    /**
+     * 获取数据库服务器的主版本号，按连接缓存
+     * @param config 连接配置
+     * @return 主版本号，无法获取时返回0
+     */
+    public static int getDatabaseMajorVersion(ConnectionConfig config) {
+        Integer version = databaseVersions.get(config.getId());
+        if (version != null) {
+            return version;
+        }
+        
+        try (Connection conn = getConnection(config)) {
+            version = conn.getMetaData().getDatabaseMajorVersion();
+            databaseVersions.put(config.getId(), version);
+            return version;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+    
+    /**
+     * 批量获取schema下所有表的列、主键、索引和表选项
+     * 每种数据库只执行几条针对整个schema的目录查询，并同时填充getColumns和getPrimaryKeys的缓存
+     * @param config 连接配置
+     * @param schema schema名，为空时使用连接的默认schema
+     * @return schema元数据，读取失败时返回null
+     */
+    public static SchemaMetadata getSchemaMetadata(ConnectionConfig config, String schema) {
+        if ("redis".equalsIgnoreCase(config.getDatabaseType())) {
+            return null;
+        }
+        
+        return MetadataCache.get(config, "schema", schema, () -> {
+            try (Connection conn = getConnection(config)) {
+                SchemaMetadata metadata = SchemaMetadataLoader.load(conn, config, schema);
+                for (SchemaMetadata.TableMetadata table : metadata.getTables()) {
+                    MetadataCache.put(config, "columns", schema + "." + table.getName(), table.getColumns());
+                    if (!table.getPrimaryKeys().isEmpty()) {
+                        MetadataCache.put(config, "primaryKeys", metadata.getSchema() + "." + table.getName(), table.getPrimaryKeys());
+                        if (metadata.getSchema() != null && metadata.getSchema().equalsIgnoreCase(config.getDatabase())) {
+                            // 当前数据库的表通常不带schema前缀查询主键
+                            MetadataCache.put(config, "primaryKeys", table.getName(), table.getPrimaryKeys());
+                        }
+                    }
+                }
+                return metadata;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+    
     /**
      * 获取数据库列表
      * @param config 连接配置
      * @return 数据库列表
      */
     public static List<String> getDatabases(ConnectionConfig config) {
+        return new ArrayList<>(MetadataCache.get(config, "databases", null, () -> loadDatabases(config)));
+    }
+    
+    /**
+     * 从数据库读取数据库列表
+     */
+    private static List<String> loadDatabases(ConnectionConfig config) {
         List<String> databases = new ArrayList<>();
         
         try {
@@ -1118,6 +1753,13 @@ public class DatabaseService {
      * @return 主键列名列表
      */
     public static List<String> getPrimaryKeys(ConnectionConfig config, String tableName) {
+        return new ArrayList<>(MetadataCache.get(config, "primaryKeys", tableName, () -> loadPrimaryKeys(config, tableName)));
+    }
+    
+    /**
+     * 从数据库读取表的主键列
+     */
+    private static List<String> loadPrimaryKeys(ConnectionConfig config, String tableName) {
         List<String> primaryKeys = new ArrayList<>();
         
         try {
@@ -1237,6 +1879,11 @@ public class DatabaseService {
      * @return 是否连接成功
      */
     public static boolean connect(ConnectionConfig config) {
-        return testConnection(config);
+        boolean connected = testConnection(config);
+        if (connected && "oracle".equalsIgnoreCase(config.getDatabaseType())) {
+            // 分页语法取决于Oracle版本，连接时在后台读取并缓存，之后在事件线程中选择分页语法不再访问数据库
+            getDatabaseMajorVersion(config);
+        }
+        return connected;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.database.visualization.controller;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 生成表数据编辑对应的参数化增删改语句
+ * 值不再拼接到SQL中，SQL只由表名和涉及的列决定
+ */
+public final class DmlBuilder {
+    private DmlBuilder() {
+    }
+
+    /**
+     * 生成更新语句，只更新修改过的非主键列，按主键的原始值定位行
+     * @param table 表名
+     * @param columnNames 列名
+     * @param columnTypes 列的java.sql.Types类型，可以为null
+     * @param values 行的当前值
+     * @param originalValues 行的原始值
+     * @param modifiedColumns 修改过的列索引
+     * @param primaryKeys 主键列
+     * @return 更新语句，没有可更新的列或缺少主键时返回null
+     */
+    public static DmlStatement update(String table, List<String> columnNames, int[] columnTypes,
+                                      List<Object> values, List<Object> originalValues,
+                                      Collection<Integer> modifiedColumns, List<String> primaryKeys) {
+        if (table == null || primaryKeys.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        List<Object> parameters = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+
+        boolean hasChanges = false;
+        for (int i : modifiedColumns) {
+            String columnName = columnNames.get(i);
+            if (primaryKeys.contains(columnName)) {
+                continue;
+            }
+            if (hasChanges) {
+                sql.append(", ");
+            }
+            sql.append(columnName).append(" = ?");
+            parameters.add(values.get(i));
+            types.add(typeOf(columnTypes, i));
+            hasChanges = true;
+        }
+
+        if (!hasChanges || !appendKeyCondition(sql, columnNames, columnTypes, originalValues, primaryKeys, parameters, types)) {
+            return null;
+        }
+        return new DmlStatement(sql.toString(), parameters, types);
+    }
+
+    /**
+     * 生成插入语句，值为null的列不插入，由数据库使用默认值
+     * @return 插入语句，所有值都为null时返回null
+     */
+    public static DmlStatement insert(String table, List<String> columnNames, int[] columnTypes, List<Object> values) {
+        if (table == null) {
+            return null;
+        }
+
+        StringBuilder columns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+
+        for (int i = 0; i < columnNames.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (!parameters.isEmpty()) {
+                columns.append(", ");
+                placeholders.append(", ");
+            }
+            columns.append(columnNames.get(i));
+            placeholders.append('?');
+            parameters.add(value);
+            types.add(typeOf(columnTypes, i));
+        }
+
+        if (parameters.isEmpty()) {
+            return null;
+        }
+        String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+        return new DmlStatement(sql, parameters, types);
+    }
+
+    /**
+     * 生成删除语句，按主键的原始值定位行
+     * @return 删除语句，缺少主键时返回null
+     */
+    public static DmlStatement delete(String table, List<String> columnNames, int[] columnTypes,
+                                      List<Object> originalValues, List<String> primaryKeys) {
+        if (table == null || primaryKeys.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(table);
+        List<Object> parameters = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        if (!appendKeyCondition(sql, columnNames, columnTypes, originalValues, primaryKeys, parameters, types)) {
+            return null;
+        }
+        return new DmlStatement(sql.toString(), parameters, types);
+    }
+
+    /**
+     * 追加按主键定位的WHERE条件，主键值为null时使用IS NULL
+     * @return 结果中是否包含主键列
+     */
+    private static boolean appendKeyCondition(StringBuilder sql, List<String> columnNames, int[] columnTypes,
+                                              List<Object> originalValues, List<String> primaryKeys,
+                                              List<Object> parameters, List<Integer> types) {
+        boolean firstKey = true;
+        for (String key : primaryKeys) {
+            int keyIndex = columnNames.indexOf(key);
+            if (keyIndex < 0) {
+                continue;
+            }
+            sql.append(firstKey ? " WHERE " : " AND ").append(key);
+            Object keyValue = originalValues.get(keyIndex);
+            if (keyValue == null) {
+                sql.append(" IS NULL");
+            } else {
+                sql.append(" = ?");
+                parameters.add(keyValue);
+                types.add(typeOf(columnTypes, keyIndex));
+            }
+            firstKey = false;
+        }
+        return !firstKey;
+    }
+
+    private static int typeOf(int[] columnTypes, int column) {
+        return columnTypes != null && column < columnTypes.length ? columnTypes[column] : Types.OTHER;
+    }
+}
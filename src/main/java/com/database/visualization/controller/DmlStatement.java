@@ -0,0 +1,65 @@
+package com.database.visualization.controller;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带参数的增删改语句
+ * SQL中的值都用?占位，同一张表修改同一组列时SQL相同，可以命中驱动和服务端的预编译语句缓存
+ */
+public class DmlStatement {
+    private final String sql;
+    private final List<Object> parameters;
+    private final List<Integer> parameterTypes;
+
+    /**
+     * @param sql 带?占位符的SQL
+     * @param parameters 参数值
+     * @param parameterTypes 参数对应列的java.sql.Types类型，未知时为Types.OTHER
+     */
+    public DmlStatement(String sql, List<Object> parameters, List<Integer> parameterTypes) {
+        this.sql = sql;
+        this.parameters = new ArrayList<>(parameters);
+        this.parameterTypes = new ArrayList<>(parameterTypes);
+    }
+
+    /**
+     * 按列类型绑定参数，字符串值由驱动转换为列的类型
+     */
+    public void bind(PreparedStatement stmt) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            int type = parameterTypes.get(i);
+            if (value == null) {
+                stmt.setNull(i + 1, type == Types.OTHER ? Types.NULL : type);
+            } else if (type == Types.OTHER || type == Types.NULL) {
+                stmt.setObject(i + 1, value);
+            } else {
+                stmt.setObject(i + 1, value, type);
+            }
+        }
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public List<Integer> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * 用于显示和日志，参数附在SQL之后
+     */
+    @Override
+    public String toString() {
+        return parameters.isEmpty() ? sql : sql + " -- " + parameters;
+    }
+}
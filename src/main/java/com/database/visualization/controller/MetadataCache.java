@@ -0,0 +1,140 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.utils.ConnectionManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库元数据缓存
+ * 按连接缓存数据库、schema、表、列和主键列表，条目超过有效期后重新读取，
+ * 条目数超过上限时淘汰最久未访问的条目；执行DDL或手动刷新时清除该连接的缓存
+ */
+public final class MetadataCache {
+    private static final Pattern DDL_STATEMENT = Pattern.compile(
+            "(?is)^\\s*(create|alter|drop|truncate|rename|comment)\\b.*");
+
+    // 按访问顺序排列，超出上限时淘汰最久未访问的条目
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > getMaxEntries();
+        }
+    };
+
+    private MetadataCache() {
+    }
+
+    /**
+     * 获取缓存的元数据，不存在或已过期时通过loader读取
+     * 空结果通常是查询失败或对象不存在，不缓存
+     * @param config 连接配置
+     * @param kind 元数据类别，如tables、columns
+     * @param name 元数据所属的对象，如schema名或表名，可以为null
+     * @param loader 读取元数据
+     */
+    public static <T> T get(ConnectionConfig config, String kind, String name, Supplier<T> loader) {
+        String key = keyOf(config, kind, name);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expireTime > now) {
+                @SuppressWarnings("unchecked")
+                T value = (T) entry.value;
+                return value;
+            }
+        }
+
+        // 读取元数据可能很慢，不持有锁
+        T value = loader.get();
+        if (value != null && !(value instanceof Collection && ((Collection<?>) value).isEmpty())
+                && !(value instanceof Map && ((Map<?, ?>) value).isEmpty())) {
+            long ttl = getTtlMillis();
+            if (ttl > 0) {
+                synchronized (entries) {
+                    entries.put(key, new Entry(value, now + ttl));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 放入已读取的元数据，批量读取schema后预先填充单表的列和主键
+     */
+    public static void put(ConnectionConfig config, String kind, String name, Object value) {
+        long ttl = getTtlMillis();
+        if (ttl > 0) {
+            synchronized (entries) {
+                entries.put(keyOf(config, kind, name), new Entry(value, System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    /**
+     * 清除一个连接的所有元数据
+     */
+    public static void invalidate(String connectionId) {
+        String prefix = connectionId + "|";
+        synchronized (entries) {
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * 清除所有连接的元数据
+     */
+    public static void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * SQL是DDL语句时清除该连接的元数据
+     * @return 是否为DDL语句
+     */
+    public static boolean invalidateIfDdl(ConnectionConfig config, String sql) {
+        if (sql != null && DDL_STATEMENT.matcher(sql).matches()) {
+            invalidate(config.getId());
+            return true;
+        }
+        return false;
+    }
+
+    private static String keyOf(ConnectionConfig config, String kind, String name) {
+        // 同一连接切换数据库后读取的是另一个数据库的元数据
+        return config.getId() + "|" + config.getDatabase() + "|" + kind + "|" + (name != null ? name : "");
+    }
+
+    private static long getTtlMillis() {
+        return ((Number) ConnectionManager.getSetting("metadataCacheTTLSeconds", 300)).longValue() * 1000;
+    }
+
+    private static int getMaxEntries() {
+        return ((Number) ConnectionManager.getSetting("metadataCacheEntries", 20000)).intValue();
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long expireTime;
+
+        Entry(Object value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 各数据库的分页语法
+ * 为任意查询追加分页子句；已知有序唯一键时生成键集(seek)查询，深分页不再按OFFSET逐行跳过
+ */
+public abstract class PaginationDialect {
+    private static final String PAGE_ALIAS = "page_t";
+
+    /**
+     * 根据连接选择分页语法，Oracle 12c之前的版本使用ROWNUM
+     * 可能在事件线程中调用，不访问数据库：Oracle版本在连接时缓存，版本未知时使用各版本都支持的ROWNUM
+     */
+    public static PaginationDialect forConfig(ConnectionConfig config) {
+        String databaseType = config.getDatabaseType().toLowerCase();
+        switch (databaseType) {
+            case "mysql":
+                return new LimitOffsetDialect('`', '`');
+            case "sqlserver":
+                return new OffsetFetchDialect('[', ']', true);
+            case "oracle":
+                if (DatabaseService.getCachedDatabaseMajorVersion(config) >= 12) {
+                    return new OffsetFetchDialect('"', '"', false);
+                }
+                return new RownumDialect();
+            default:
+                return new LimitOffsetDialect('"', '"');
+        }
+    }
+
+    private final char quoteStart;
+    private final char quoteEnd;
+
+    protected PaginationDialect(char quoteStart, char quoteEnd) {
+        this.quoteStart = quoteStart;
+        this.quoteEnd = quoteEnd;
+    }
+
+    /**
+     * 为查询追加分页
+     * @param sql 原始查询，不带结尾分号
+     * @param offset 跳过的行数
+     * @param limit 返回的最大行数
+     */
+    public abstract String limit(String sql, long offset, int limit);
+
+    /**
+     * 按键列排序分页，afterKey为true时只取键值大于参数的行，参数由调用方绑定
+     * @param sql 原始查询，结果中必须包含键列
+     * @param keyColumn 有序唯一键列
+     * @param afterKey 是否从上一页最后一行的键值之后开始
+     * @param offset 跳过的行数，键集查询时为0
+     * @param limit 返回的最大行数
+     */
+    public String seek(String sql, String keyColumn, boolean afterKey, long offset, int limit) {
+        String key = PAGE_ALIAS + "." + quoteIdentifier(keyColumn);
+        StringBuilder ordered = new StringBuilder(wrap(sql));
+        if (afterKey) {
+            ordered.append(" WHERE ").append(key).append(" > ?");
+        }
+        ordered.append(" ORDER BY ").append(key);
+        return limit(ordered.toString(), offset, limit);
+    }
+
+    /**
+     * 生成统计查询总行数的语句，不影响行数的ORDER BY被去掉
+     */
+    public String count(String sql) {
+        int orderBy = lastTopLevelKeyword(sql, "ORDER");
+        if (orderBy >= 0 && !hasTopLevelKeyword(sql, "LIMIT", "OFFSET", "FETCH", "TOP")) {
+            // SQL Server不允许派生表中单独使用ORDER BY，其他数据库也可以省去排序
+            sql = sql.substring(0, orderBy).trim();
+        }
+        return "SELECT COUNT(*) FROM (" + sql + ") count_t";
+    }
+
+    /**
+     * 引用标识符，schema前缀分别引用
+     */
+    public String quoteIdentifier(String identifier) {
+        StringBuilder quoted = new StringBuilder();
+        for (String part : identifier.split("\\.")) {
+            if (quoted.length() > 0) {
+                quoted.append('.');
+            }
+            quoted.append(quoteName(part));
+        }
+        return quoted.toString();
+    }
+
+    /**
+     * 引用单个名称，如列名，名称中的点不作为分隔符，结束引号加倍转义
+     */
+    public String quoteName(String name) {
+        String end = String.valueOf(quoteEnd);
+        return quoteStart + name.replace(end, end + end) + quoteEnd;
+    }
+
+    /**
+     * 将查询包装为派生表
+     */
+    protected static String wrap(String sql) {
+        return "SELECT * FROM (" + sql + ") " + PAGE_ALIAS;
+    }
+
+    /**
+     * 查询的最外层是否出现了任一关键字，忽略括号、引号和注释中的内容
+     */
+    static boolean hasTopLevelKeyword(String sql, String... keywords) {
+        for (String word : topLevelWords(sql)) {
+            for (String keyword : keywords) {
+                if (keyword.equals(word)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找最外层最后一次出现关键字的位置
+     * @return 字符位置，不存在时返回-1
+     */
+    static int lastTopLevelKeyword(String sql, String keyword) {
+        List<String> words = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        scanTopLevelWords(sql, words, positions);
+        for (int i = words.size() - 1; i >= 0; i--) {
+            if (keyword.equals(words.get(i))) {
+                return positions.get(i);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 提取最外层的单词，统一转为大写
+     */
+    static List<String> topLevelWords(String sql) {
+        List<String> words = new ArrayList<>();
+        scanTopLevelWords(sql, words, new ArrayList<>());
+        return words;
+    }
+
+    /**
+     * 扫描最外层的单词及其起始位置
+     */
+    private static void scanTopLevelWords(String sql, List<String> words, List<Integer> positions) {
+        int depth = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == close) {
+                        // 两个连续引号表示转义
+                        if (i + 1 < length && sql.charAt(i + 1) == close && close != ']') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (sql.charAt(i) == '\\' && c == '\'') {
+                        i++;
+                    }
+                    i++;
+                }
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') i++;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) i++;
+                if (depth == 0) {
+                    words.add(sql.substring(start, i).toUpperCase());
+                    positions.add(start);
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * LIMIT n OFFSET m，用于MySQL、PostgreSQL和SQLite
+     */
+    private static final class LimitOffsetDialect extends PaginationDialect {
+        LimitOffsetDialect(char quoteStart, char quoteEnd) {
+            super(quoteStart, quoteEnd);
+        }
+
+        @Override
+        public String limit(String sql, long offset, int limit) {
+            if (hasTopLevelKeyword(sql, "LIMIT", "OFFSET", "FETCH")) {
+                // 原查询自带行数限制时在其结果内分页
+                sql = wrap(sql);
+            }
+            StringBuilder paged = new StringBuilder(sql).append(" LIMIT ").append(limit);
+            if (offset > 0) {
+                paged.append(" OFFSET ").append(offset);
+            }
+            return paged.toString();
+        }
+    }
+
+    /**
+     * OFFSET m ROWS FETCH NEXT n ROWS ONLY，用于SQL Server 2012+和Oracle 12c+
+     */
+    private static final class OffsetFetchDialect extends PaginationDialect {
+        private final boolean requiresOrderBy;
+
+        OffsetFetchDialect(char quoteStart, char quoteEnd, boolean requiresOrderBy) {
+            super(quoteStart, quoteEnd);
+            this.requiresOrderBy = requiresOrderBy;
+        }
+
+        @Override
+        public String limit(String sql, long offset, int limit) {
+            if (hasTopLevelKeyword(sql, "OFFSET", "FETCH", "TOP")) {
+                sql = wrap(sql);
+            }
+            StringBuilder paged = new StringBuilder(sql);
+            if (requiresOrderBy && !hasTopLevelKeyword(sql, "ORDER")) {
+                // SQL Server的OFFSET必须跟在ORDER BY之后
+                paged.append(" ORDER BY (SELECT NULL)");
+            }
+            paged.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ").append(limit).append(" ROWS ONLY");
+            return paged.toString();
+        }
+    }
+
+    /**
+     * ROWNUM嵌套查询，用于Oracle 12c之前的版本
+     */
+    private static final class RownumDialect extends PaginationDialect {
+        RownumDialect() {
+            super('"', '"');
+        }
+
+        @Override
+        public String limit(String sql, long offset, int limit) {
+            if (offset <= 0) {
+                return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= " + limit;
+            }
+            return "SELECT * FROM (SELECT " + PAGE_ALIAS + ".*, ROWNUM page_rn FROM (" + sql + ") " + PAGE_ALIAS
+                    + " WHERE ROWNUM <= " + (offset + limit) + ") WHERE page_rn > " + offset;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ColumnarResult;
+import com.database.visualization.model.ConnectionConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 一条分页查询的页缓存
+ * 已读取的页按字节数做LRU淘汰；当前页显示后在后台预取相邻页，翻页时直接命中缓存
+ */
+public class QueryPageCache {
+    private final ConnectionConfig config;
+    private final QueryPaginator paginator;
+    private final int pageSize;
+    private final long maxBytes;
+
+    // 按访问顺序排列，超出字节上限时从最久未访问的页开始淘汰
+    private final LinkedHashMap<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, CompletableFuture<Page>> loadingPages = new HashMap<>();
+    private long cachedBytes = 0;
+
+    private final ExecutorService prefetchExecutor;
+    private volatile boolean disposed = false;
+
+    /**
+     * @param config 连接配置
+     * @param paginator 查询的分页状态
+     * @param pageSize 每页行数
+     * @param maxBytes 缓存占用的最大字节数
+     */
+    public QueryPageCache(ConnectionConfig config, QueryPaginator paginator, int pageSize, long maxBytes) {
+        this.config = config;
+        this.paginator = paginator;
+        this.pageSize = pageSize;
+        this.maxBytes = maxBytes;
+        // 单线程顺序预取，最多额外占用一个数据库连接
+        this.prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "page-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 判断缓存是否属于指定的分页查询和页大小
+     */
+    public boolean isFor(QueryPaginator paginator, int pageSize) {
+        return this.paginator == paginator && this.pageSize == pageSize;
+    }
+
+    /**
+     * 获取已缓存的页
+     * @return 页数据，未缓存时返回null
+     */
+    public synchronized Page get(int pageIndex) {
+        return pages.get(pageIndex);
+    }
+
+    /**
+     * 获取正在后台读取的页
+     * @return 读取任务，没有在读取时返回null
+     */
+    public synchronized CompletableFuture<Page> getLoading(int pageIndex) {
+        return loadingPages.get(pageIndex);
+    }
+
+    /**
+     * 放入一页数据，超出字节上限时淘汰最久未访问的页
+     */
+    public synchronized void put(int pageIndex, Page page) {
+        if (disposed) return;
+
+        Page previous = pages.put(pageIndex, page);
+        if (previous != null) {
+            cachedBytes -= previous.getBytes();
+        }
+        cachedBytes += page.getBytes();
+
+        Iterator<Map.Entry<Integer, Page>> iterator = pages.entrySet().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Integer, Page> eldest = iterator.next();
+            if (eldest.getKey() == pageIndex) {
+                // 至少保留刚放入的页
+                continue;
+            }
+            cachedBytes -= eldest.getValue().getBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 在后台预取相邻页，先预取下一页
+     * @param pageIndex 当前页号，从0开始
+     * @param hasNext 当前页是否读满，读满时才可能有下一页
+     */
+    public void prefetchAround(int pageIndex, boolean hasNext) {
+        if (hasNext) {
+            prefetch(pageIndex + 1);
+        }
+        if (pageIndex > 0) {
+            prefetch(pageIndex - 1);
+        }
+    }
+
+    private synchronized void prefetch(int pageIndex) {
+        if (disposed || pages.containsKey(pageIndex) || loadingPages.containsKey(pageIndex)) {
+            return;
+        }
+
+        CompletableFuture<Page> future = CompletableFuture.supplyAsync(() -> loadPage(pageIndex), prefetchExecutor);
+        loadingPages.put(pageIndex, future);
+        future.whenComplete((page, error) -> {
+            synchronized (QueryPageCache.this) {
+                loadingPages.remove(pageIndex);
+            }
+            if (page != null) {
+                put(pageIndex, page);
+            }
+        });
+    }
+
+    /**
+     * 读取一页并记录该页的键集位置
+     */
+    private Page loadPage(int pageIndex) {
+        if (disposed) {
+            return null;
+        }
+
+        QueryPaginator.PageQuery query = paginator.getPageQuery(pageIndex, pageSize);
+        List<List<Object>> rows = new ArrayList<>(pageSize);
+        List<String> columnNames = new ArrayList<>();
+        int[][] columnTypes = new int[1][];
+
+        Map<String, Object> result = DatabaseService.executeStreamingQuery(config, query.getSql(), query.getParameters(),
+                pageSize, pageSize, new RowChunkConsumer() {
+                    @Override
+                    public void onColumns(List<String> names, int[] types) {
+                        columnNames.addAll(names);
+                        columnTypes[0] = types;
+                    }
+
+                    @Override
+                    public boolean onRows(List<List<Object>> chunk) {
+                        rows.addAll(chunk);
+                        return !disposed;
+                    }
+                });
+
+        if (disposed || !(boolean) result.get("success")) {
+            // 预取失败不影响当前页，用户翻页时会重新查询并显示错误
+            return null;
+        }
+
+        int keyIndex = paginator.findKeyIndex(columnNames);
+        if (keyIndex >= 0 && !rows.isEmpty()) {
+            paginator.recordPage(pageIndex, pageSize, rows.size(), rows.get(rows.size() - 1).get(keyIndex));
+        }
+        return new Page(columnNames, columnTypes[0], rows);
+    }
+
+    /**
+     * 停止预取并清空缓存
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        prefetchExecutor.shutdownNow();
+        pages.clear();
+        loadingPages.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * 缓存的一页数据，放入缓存后不再修改
+     */
+    public static class Page {
+        private final List<String> columnNames;
+        private final int[] columnTypes;
+        private final List<List<Object>> rows;
+        private final long bytes;
+
+        public Page(List<String> columnNames, int[] columnTypes, List<List<Object>> rows) {
+            this.columnNames = new ArrayList<>(columnNames);
+            this.columnTypes = columnTypes;
+            this.rows = rows;
+
+            long size = 0;
+            for (List<Object> row : rows) {
+                size += 16 + 8L * row.size();
+                for (Object value : row) {
+                    size += ColumnarResult.estimateValueBytes(value);
+                }
+            }
+            this.bytes = size;
+        }
+
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        public int[] getColumnTypes() {
+            return columnTypes;
+        }
+
+        public List<List<Object>> getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
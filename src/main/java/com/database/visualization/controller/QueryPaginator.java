@@ -0,0 +1,140 @@
+package com.database.visualization.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 一条查询的分页状态
+ * 查询是单表的 SELECT * 且已知单列主键时按主键排序，并记录每页最后一行的键值，
+ * 相邻页使用键集查询；跳页到未访问过的页时退回OFFSET分页
+ */
+public class QueryPaginator {
+    private static final Pattern SINGLE_TABLE_SELECT = Pattern.compile(
+            "(?is)^\\s*select\\s+\\*\\s+from\\s+([\\w.`\"\\[\\]]+)(\\s+where\\s+.*)?$");
+
+    private final PaginationDialect dialect;
+    private final String sql;
+    private final String keyColumn;
+
+    // 页号 -> 该页之前最后一行的键值
+    private final Map<Integer, Object> pageStartKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param dialect 分页语法
+     * @param sql 原始查询
+     * @param keyColumn 单列主键或有序唯一键，为null或查询不适用时使用OFFSET分页
+     */
+    public QueryPaginator(PaginationDialect dialect, String sql, String keyColumn) {
+        this.dialect = dialect;
+        this.sql = stripTerminator(sql);
+        this.keyColumn = keyColumn != null && getSingleTable(this.sql) != null ? keyColumn : null;
+    }
+
+    /**
+     * 获取单表 SELECT * 查询的表名，查询包含排序、分组、连接、集合运算或行数限制时返回null
+     */
+    public static String getSingleTable(String sql) {
+        Matcher matcher = SINGLE_TABLE_SELECT.matcher(stripTerminator(sql));
+        if (!matcher.matches()) {
+            return null;
+        }
+        if (PaginationDialect.hasTopLevelKeyword(sql, "ORDER", "GROUP", "HAVING", "LIMIT", "OFFSET", "FETCH",
+                "UNION", "INTERSECT", "EXCEPT", "MINUS", "JOIN", "TOP", "DISTINCT")) {
+            return null;
+        }
+        return matcher.group(1).replaceAll("[`\"\\[\\]]", "");
+    }
+
+    private static String stripTerminator(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * 生成指定页的查询
+     * @param pageIndex 从0开始的页号
+     * @param pageSize 每页行数
+     */
+    public PageQuery getPageQuery(int pageIndex, int pageSize) {
+        long offset = (long) pageIndex * pageSize;
+        if (keyColumn == null) {
+            return new PageQuery(dialect.limit(sql, offset, pageSize), Collections.emptyList());
+        }
+
+        Object startKey = pageStartKeys.get(pageIndex);
+        if (pageIndex > 0 && startKey != null) {
+            return new PageQuery(dialect.seek(sql, keyColumn, true, 0, pageSize), Collections.singletonList(startKey));
+        }
+        return new PageQuery(dialect.seek(sql, keyColumn, false, offset, pageSize), Collections.emptyList());
+    }
+
+    /**
+     * 记录一页的读取结果，页满时保存最后一行的键值作为下一页的起点
+     * @param pageIndex 从0开始的页号
+     * @param pageSize 每页行数
+     * @param rowCount 该页实际行数
+     * @param lastKey 该页最后一行的键值
+     */
+    public void recordPage(int pageIndex, int pageSize, int rowCount, Object lastKey) {
+        if (keyColumn != null && rowCount == pageSize && lastKey != null) {
+            pageStartKeys.put(pageIndex + 1, lastKey);
+        }
+    }
+
+    /**
+     * 查找键列在结果列中的位置
+     * @return 列索引，不使用键集分页或找不到时返回-1
+     */
+    public int findKeyIndex(List<String> columnNames) {
+        if (keyColumn == null) {
+            return -1;
+        }
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (keyColumn.equalsIgnoreCase(columnNames.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isKeyset() {
+        return keyColumn != null;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * 一页的查询语句及其参数
+     */
+    public static class PageQuery {
+        private final String sql;
+        private final List<Object> parameters;
+
+        PageQuery(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = new ArrayList<>(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.database.visualization.controller;
+
+import java.util.List;
+
+/**
+ * 流式查询结果的分块接收器
+ */
+public interface RowChunkConsumer {
+
+    /**
+     * 收到结果集的列信息，在任何数据块之前调用一次
+     * @param columnNames 列名列表
+     * @param columnTypes 列类型（java.sql.Types），类型未知时为null
+     */
+    void onColumns(List<String> columnNames, int[] columnTypes);
+
+    /**
+     * 收到一块数据行，调用方不会再修改传入的列表
+     * @param rows 数据行
+     * @return 返回false表示不再需要后续数据，查询将被提前结束
+     */
+    boolean onRows(List<List<Object>> rows);
+}
@@ -0,0 +1,202 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+
+import java.sql.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 查询结果总行数的获取
+ * 先从统计信息或执行计划得到估计值，不扫描数据；需要时再执行可取消的精确COUNT(*)
+ */
+public class RowCountProvider {
+    private static final Pattern POSTGRESQL_PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final ConnectionConfig config;
+    private final String sql;
+    private volatile StatementRegistry.RunningStatement runningStatement;
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param config 连接配置
+     * @param sql 原始查询
+     */
+    public RowCountProvider(ConnectionConfig config, String sql) {
+        this.config = config;
+        this.sql = stripTerminator(sql);
+    }
+
+    private static String stripTerminator(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * 估算总行数：整表查询读取表统计信息，其他查询读取执行计划的估计行数
+     * @return 估计行数，无法估算时返回-1
+     */
+    public long estimate() {
+        String databaseType = config.getDatabaseType().toLowerCase();
+        try (Connection conn = DatabaseService.getConnection(config)) {
+            String table = QueryPaginator.getSingleTable(sql);
+            if (table != null && !PaginationDialect.hasTopLevelKeyword(sql, "WHERE")) {
+                try {
+                    long rows = estimateTableRows(conn, databaseType, table);
+                    if (rows >= 0) {
+                        return rows;
+                    }
+                } catch (SQLException e) {
+                    // 没有权限读取统计视图时改用执行计划
+                }
+            }
+            return estimateFromPlan(conn, databaseType);
+        } catch (SQLException e) {
+            // 统计信息不可用时只是没有估计值
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * 从表统计信息读取行数
+     */
+    private long estimateTableRows(Connection conn, String databaseType, String table) throws SQLException {
+        String schema = null;
+        String name = table;
+        int dot = table.lastIndexOf('.');
+        if (dot > 0) {
+            schema = table.substring(0, dot);
+            name = table.substring(dot + 1);
+        }
+
+        String query;
+        switch (databaseType) {
+            case "mysql":
+                query = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_NAME = ? AND TABLE_SCHEMA = "
+                        + (schema != null ? "?" : "DATABASE()");
+                break;
+            case "postgresql":
+                // reltuples为-1表示表从未分析过
+                query = "SELECT CASE WHEN reltuples < 0 THEN NULL ELSE reltuples::bigint END FROM pg_class WHERE oid = to_regclass(?)";
+                schema = null;
+                name = table;
+                break;
+            case "sqlserver":
+                query = "SELECT SUM(rows) FROM sys.partitions WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+                schema = null;
+                name = table;
+                break;
+            case "oracle":
+                query = "SELECT NUM_ROWS FROM ALL_TABLES WHERE TABLE_NAME = UPPER(?) AND OWNER = "
+                        + (schema != null ? "UPPER(?)" : "USER");
+                break;
+            default:
+                return -1;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, name);
+            if (schema != null) {
+                stmt.setString(2, schema);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long rows = rs.getLong(1);
+                    return rs.wasNull() ? -1 : rows;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 从执行计划读取估计行数
+     */
+    private long estimateFromPlan(Connection conn, String databaseType) throws SQLException {
+        if ("mysql".equals(databaseType)) {
+            // 各表估计行数乘以过滤比例的乘积近似为连接后的行数
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
+                double rows = -1;
+                while (rs.next()) {
+                    String selectType = rs.getString("select_type");
+                    long tableRows = rs.getLong("rows");
+                    if (rs.wasNull() || !("SIMPLE".equals(selectType) || "PRIMARY".equals(selectType))) {
+                        continue;
+                    }
+                    double filtered = rs.getDouble("filtered");
+                    double estimated = tableRows * (rs.wasNull() ? 100 : filtered) / 100;
+                    rows = rows < 0 ? estimated : rows * estimated;
+                }
+                return rows < 0 ? -1 : Math.round(rows);
+            }
+        } else if ("postgresql".equals(databaseType)) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
+                if (rs.next()) {
+                    Matcher matcher = POSTGRESQL_PLAN_ROWS.matcher(rs.getString(1));
+                    if (matcher.find()) {
+                        return Long.parseLong(matcher.group(1));
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 执行精确的COUNT(*)，可以通过cancel()中止
+     * @return 精确行数
+     * @throws SQLException 查询失败或被取消
+     */
+    public long countExact() throws SQLException {
+        cancelled = false;
+        String countSql = PaginationDialect.forConfig(config).count(sql);
+        StatementRegistry.RunningStatement running = null;
+        try (Connection conn = DatabaseService.getConnection(config);
+             Statement stmt = conn.createStatement()) {
+            running = StatementRegistry.register(config, stmt, countSql);
+            runningStatement = running;
+            if (cancelled) {
+                throw new SQLException("统计已取消");
+            }
+            try (ResultSet rs = stmt.executeQuery(countSql)) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            if (cancelled) {
+                throw new SQLException("统计已取消", e);
+            }
+            throw e;
+        } finally {
+            StatementRegistry.unregister(running);
+            runningStatement = null;
+        }
+    }
+
+    /**
+     * 取消正在执行的精确统计
+     */
+    public void cancel() {
+        cancelled = true;
+        StatementRegistry.RunningStatement running = runningStatement;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    /**
+     * 判断是否为同一连接上的同一查询
+     */
+    public boolean isSameQuery(ConnectionConfig config, String sql) {
+        return this.config == config && this.sql.equals(stripTerminator(sql));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,22 @@
+package com.database.visualization.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 批量导入的数据来源，逐行提供文本形式的值
+ */
+public interface RowSource extends Closeable {
+
+    /**
+     * 数据对应的列名，在读取数据行之前调用
+     */
+    List<String> getColumns() throws IOException;
+
+    /**
+     * 读取下一行
+     * @return 各列的值，null表示SQL NULL；没有更多数据时返回null
+     */
+    List<String> nextRow() throws IOException;
+}
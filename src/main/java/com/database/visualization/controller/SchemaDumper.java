@@ -0,0 +1,699 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.model.SchemaMetadata;
+import com.database.visualization.utils.CompressionCodec;
+import com.database.visualization.utils.CompressionCodecs;
+import com.database.visualization.utils.ConnectionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 把一个schema的表结构和数据导出为SQL脚本
+ * 导出分为文件头、各表结构和数据等分段，大表再按主键范围分为多段；各分段并行导出，
+ * 用流式查询边读边写到目标文件旁的.parts目录中，全部完成后按顺序拼接到目标文件，内存占用与表的大小无关。
+ * 分段计划保存在manifest.json中，取消或失败后再次导出到同一文件时只导出未完成的分段
+ */
+public class SchemaDumper {
+    // 流式查询每块的行数
+    private static final int CHUNK_SIZE = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // 主键范围划分的最大分段数
+    private static final int MAX_CHUNKS = 1024;
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ConnectionConfig config;
+    private final String schemaName;
+    // 与之前使用FileWriter时的编码一致
+    private final Charset charset = Charset.defaultCharset();
+    // 按目标文件的扩展名确定，为null时不压缩；每个分段单独压缩，压缩流首尾相接仍是合法的压缩文件
+    private CompressionCodec codec;
+
+    /**
+     * 导出进度
+     */
+    public interface Listener {
+        /**
+         * 开始导出一个表
+         */
+        void onTableStarted(String tableName);
+
+        /**
+         * 一个表导出完成
+         * @param finished 已完成的表数
+         * @param total 表的总数
+         */
+        void onTableFinished(int finished, int total);
+    }
+
+    public SchemaDumper(ConnectionConfig config, String schemaName) {
+        this.config = config;
+        this.schemaName = schemaName;
+    }
+
+    /**
+     * 导出分段，保存在manifest.json中
+     */
+    static final class Segment {
+        public String file;
+        // header、ddl或data
+        public String kind;
+        public String table;
+        // 数据分段的WHERE条件，为null时导出整个表
+        public String condition;
+        // 是否是表的最后一个数据分段
+        public boolean last;
+
+        Segment() {
+        }
+
+        Segment(String file, String kind, String table, String condition, boolean last) {
+            this.file = file;
+            this.kind = kind;
+            this.table = table;
+            this.condition = condition;
+            this.last = last;
+        }
+    }
+
+    /**
+     * 分段计划
+     */
+    static final class Manifest {
+        public String connectionId;
+        public String schema;
+        public List<Segment> segments = new ArrayList<>();
+    }
+
+    /**
+     * 默认的并行线程数，不超过CPU核数、exportThreads设置和连接池大小减一
+     */
+    public static int getDefaultThreads(ConnectionConfig config) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = ((Number) ConnectionManager.getSetting("exportThreads", cores)).intValue();
+        int poolSize = DatabaseService.getPoolProfile(config).getMaximumPoolSize();
+        return Math.max(1, Math.min(threads, Math.min(cores, poolSize - 1)));
+    }
+
+    /**
+     * 目标文件是否有未完成的导出，可以继续导出
+     */
+    public static boolean hasUnfinishedDump(Path target) {
+        return Files.exists(getWorkDir(target).resolve(MANIFEST_FILE));
+    }
+
+    /**
+     * 删除未完成导出的分段文件
+     */
+    public static void discardUnfinishedDump(Path target) throws IOException {
+        Path workDir = getWorkDir(target);
+        if (!Files.exists(workDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(workDir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(workDir);
+    }
+
+    /**
+     * 导出到文件
+     * 取消或失败时保留已完成的分段，再次导出到同一文件时从未完成的分段继续
+     * @param target 目标文件
+     * @param threads 并行导出的分段数
+     * @param listener 进度监听
+     * @param cancelled 返回true时停止导出
+     * @return 导出完成返回true，被取消返回false
+     */
+    public boolean dump(Path target, int threads, Listener listener, BooleanSupplier cancelled) throws IOException {
+        Path workDir = getWorkDir(target);
+        codec = CompressionCodecs.forFile(target);
+        // 分段计划和建表语句都使用批量读取的表结构
+        SchemaMetadata schemaMetadata = DatabaseService.getSchemaMetadata(config, schemaName);
+        Manifest manifest = readManifest(workDir);
+        if (manifest == null) {
+            manifest = createManifest(schemaMetadata, cancelled);
+            if (manifest == null) {
+                return false;
+            }
+            discardUnfinishedDump(target);
+            Files.createDirectories(workDir);
+            MAPPER.writeValue(workDir.resolve(MANIFEST_FILE).toFile(), manifest);
+        }
+
+        List<Segment> segments = manifest.segments;
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        BooleanSupplier stopped = () -> cancelled.getAsBoolean() || failure.get() != null;
+        // 一个表的数据分段都完成后才算这个表完成
+        Map<String, AtomicInteger> pendingByTable = new HashMap<>();
+        int totalTables = 0;
+        for (Segment segment : segments) {
+            if (segment.table != null && !Files.exists(workDir.resolve(segment.file))) {
+                pendingByTable.computeIfAbsent(segment.table, key -> new AtomicInteger()).incrementAndGet();
+            }
+            if ("ddl".equals(segment.kind)) {
+                totalTables++;
+            }
+        }
+        AtomicInteger finishedTables = new AtomicInteger(totalTables - pendingByTable.size());
+        int tableCount = totalTables;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Segment segment : segments) {
+                Path file = workDir.resolve(segment.file);
+                if (Files.exists(file)) {
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    if (stopped.getAsBoolean()) {
+                        return;
+                    }
+                    if ("ddl".equals(segment.kind)) {
+                        listener.onTableStarted(segment.table);
+                    }
+                    // 先写临时文件，完成后改名，已存在的分段文件一定是完整的
+                    Path partial = workDir.resolve(segment.file + ".tmp");
+                    try (Writer writer = openWriter(partial)) {
+                        writeSegment(writer, segment, schemaMetadata, stopped);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        failure.compareAndSet(null, e);
+                        return;
+                    }
+                    try {
+                        if (stopped.getAsBoolean()) {
+                            // 被取消的分段可能只写了一部分
+                            Files.deleteIfExists(partial);
+                            return;
+                        }
+                        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                        return;
+                    }
+                    AtomicInteger pending = segment.table != null ? pendingByTable.get(segment.table) : null;
+                    if (pending != null && pending.decrementAndGet() == 0) {
+                        listener.onTableFinished(finishedTables.incrementAndGet(), tableCount);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            Exception e = failure.get();
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+        if (cancelled.getAsBoolean()) {
+            return false;
+        }
+
+        // 按顺序拼接分段文件
+        try (FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Segment segment : segments) {
+                try (FileChannel input = FileChannel.open(workDir.resolve(segment.file), StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = input.size();
+                    while (position < size) {
+                        position += input.transferTo(position, size - position, output);
+                    }
+                }
+            }
+        }
+        discardUnfinishedDump(target);
+        return true;
+    }
+
+    private static Path getWorkDir(Path target) {
+        return target.toAbsolutePath().resolveSibling(target.getFileName() + ".parts");
+    }
+
+    /**
+     * 读取未完成导出的分段计划，不属于当前连接和schema时返回null
+     */
+    private Manifest readManifest(Path workDir) {
+        Path file = workDir.resolve(MANIFEST_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            Manifest manifest = MAPPER.readValue(file.toFile(), Manifest.class);
+            if (config.getId().equals(manifest.connectionId) && schemaName.equals(manifest.schema)) {
+                return manifest;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 生成分段计划：文件头，每个表的结构和按主键范围划分的数据分段
+     * @return 分段计划，被取消时返回null
+     */
+    private Manifest createManifest(SchemaMetadata schemaMetadata, BooleanSupplier cancelled) {
+        Manifest manifest = new Manifest();
+        manifest.connectionId = config.getId();
+        manifest.schema = schemaName;
+        manifest.segments.add(new Segment(segmentName(0), "header", null, null, false));
+
+        List<String> tables = DatabaseService.getTables(config, schemaName);
+        for (String tableName : tables) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            manifest.segments.add(new Segment(segmentName(manifest.segments.size()), "ddl", tableName, null, false));
+            List<String> conditions = planChunks(tableName, schemaMetadata);
+            for (int i = 0; i < conditions.size(); i++) {
+                manifest.segments.add(new Segment(segmentName(manifest.segments.size()), "data", tableName,
+                        conditions.get(i), i == conditions.size() - 1));
+            }
+        }
+        return manifest;
+    }
+
+    private static String segmentName(int index) {
+        return String.format("%06d.sql", index);
+    }
+
+    /**
+     * 按主键范围划分数据分段
+     * 只有单列整数主键、估计行数超过exportChunkRows的表才划分，每段约exportChunkRows行，
+     * 第一段和最后一段不设下限和上限，导出期间新增的行也会被导出。
+     * 主键和估计行数取自批量读取的表结构，只有需要划分的表才查询主键范围
+     * @return 各分段的WHERE条件，不划分时只有一个null
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> planChunks(String tableName, SchemaMetadata schemaMetadata) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add(null);
+        long chunkRows = ((Number) ConnectionManager.getSetting("exportChunkRows", 500000)).longValue();
+        if (chunkRows <= 0) {
+            return conditions;
+        }
+
+        String tableNameForPk = tableName.contains(".") ? tableName.substring(tableName.lastIndexOf('.') + 1) : tableName;
+        SchemaMetadata.TableMetadata tableMetadata = schemaMetadata != null
+                ? schemaMetadata.getTable(tableNameForPk) : null;
+        List<String> primaryKeys = new ArrayList<>(new LinkedHashSet<>(tableMetadata != null
+                ? tableMetadata.getPrimaryKeys() : DatabaseService.getPrimaryKeys(config, tableNameForPk)));
+        if (primaryKeys.size() != 1) {
+            return conditions;
+        }
+        String key = primaryKeys.get(0);
+
+        long rows = estimateRows(tableName, tableMetadata);
+        if (rows >= 0 && rows <= chunkRows) {
+            return conditions;
+        }
+
+        Map<String, Object> result = DatabaseService.executeQuery(config,
+                "SELECT MIN(" + key + "), MAX(" + key + ") FROM " + tableName);
+        if (!(boolean) result.get("success")) {
+            return conditions;
+        }
+        List<List<Object>> data = (List<List<Object>>) result.get("data");
+        BigInteger min = data.isEmpty() ? null : toInteger(data.get(0).get(0));
+        BigInteger max = data.isEmpty() ? null : toInteger(data.get(0).get(1));
+        if (min == null || max == null) {
+            return conditions;
+        }
+
+        BigInteger span = max.subtract(min).add(BigInteger.ONE);
+        if (rows < 0) {
+            // 没有统计信息时按主键连续估算
+            rows = span.min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+        }
+        if (rows <= chunkRows) {
+            return conditions;
+        }
+        long chunks = Math.min(MAX_CHUNKS, (rows + chunkRows - 1) / chunkRows);
+        chunks = Math.min(chunks, span.min(BigInteger.valueOf(MAX_CHUNKS)).longValue());
+        if (chunks < 2) {
+            // 统计信息过期时主键可能只有一个值，不划分
+            return conditions;
+        }
+
+        conditions.clear();
+        BigInteger previous = null;
+        for (long i = 1; i < chunks; i++) {
+            BigInteger bound = min.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(chunks)));
+            conditions.add((previous == null ? "" : key + " >= " + previous + " AND ") + key + " < " + bound);
+            previous = bound;
+        }
+        conditions.add(key + " >= " + previous);
+        return conditions;
+    }
+
+    /**
+     * 估计表的行数，优先使用表结构中的统计行数
+     * @return 估计行数，无法估计时返回-1
+     */
+    private long estimateRows(String tableName, SchemaMetadata.TableMetadata tableMetadata) {
+        String rows = tableMetadata != null ? tableMetadata.getOption("rows") : null;
+        if (rows != null) {
+            try {
+                return Long.parseLong(rows);
+            } catch (NumberFormatException e) {
+                // 按无法读取统计信息处理
+            }
+        }
+        return new RowCountProvider(config, "SELECT * FROM " + tableName).estimate();
+    }
+
+    /**
+     * 主键值转换为整数，不是整数时返回null
+     */
+    private static BigInteger toInteger(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        if (value instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) value).toBigIntegerExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void writeSegment(Writer writer, Segment segment, SchemaMetadata schemaMetadata,
+                              BooleanSupplier stopped) throws IOException {
+        switch (segment.kind) {
+            case "header":
+                writeHeader(writer);
+                break;
+            case "ddl":
+                writer.write("-- 表结构: " + segment.table + "\n");
+                writer.write(buildCreateTable(segment.table, schemaMetadata));
+                writer.write("-- 表数据: " + segment.table + "\n");
+                break;
+            default:
+                dumpRows(writer, segment.table, segment.condition, stopped);
+                if (segment.last) {
+                    writer.write("\n");
+                }
+        }
+    }
+
+    private Writer openWriter(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (codec != null) {
+            out = codec.compress(out);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, charset), WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * 写入文件头部，包含数据库信息和导出时间
+     */
+    private void writeHeader(Writer writer) throws IOException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String header = String.format("-- 导出自数据库: %s\n" +
+                        "-- 数据库类型: %s\n" +
+                        "-- 模式名称: %s\n" +
+                        "-- 导出时间: %s\n\n",
+                config.getName(), config.getDatabaseType(), schemaName, dateFormat.format(new Date()));
+        writer.write(header);
+
+        // 添加USE语句
+        writer.write(String.format("USE `%s`;\n\n", schemaName));
+    }
+
+    /**
+     * 边读边写表数据
+     * @param condition WHERE条件，为null时导出整个表
+     */
+    private void dumpRows(Writer writer, String tableName, String condition,
+                          BooleanSupplier stopped) throws IOException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        AtomicReference<IOException> writeError = new AtomicReference<>();
+        String sql = "SELECT * FROM " + tableName + (condition != null ? " WHERE " + condition : "");
+        Map<String, Object> result = DatabaseService.executeStreamingQuery(config, sql, CHUNK_SIZE, 0,
+                new RowChunkConsumer() {
+                    private String insertPrefix;
+
+                    @Override
+                    public void onColumns(List<String> columnNames, int[] columnTypes) {
+                        insertPrefix = "INSERT INTO " + tableName + " (" + String.join(", ", columnNames) + ") ";
+                    }
+
+                    @Override
+                    public boolean onRows(List<List<Object>> rows) {
+                        if (stopped.getAsBoolean()) {
+                            return false;
+                        }
+                        try {
+                            for (List<Object> row : rows) {
+                                writeInsert(writer, insertPrefix, row, dateFormat);
+                            }
+                            return true;
+                        } catch (IOException e) {
+                            writeError.set(e);
+                            return false;
+                        }
+                    }
+                });
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+        if (!(boolean) result.get("success") && !stopped.getAsBoolean()) {
+            // 分段读取失败时不能当作完成，否则继续导出时会缺少这部分数据
+            throw new IOException("导出表 " + tableName + " 失败: " + result.get("error"));
+        }
+    }
+
+    private static void writeInsert(Writer writer, String insertPrefix, List<Object> row,
+                                    SimpleDateFormat dateFormat) throws IOException {
+        StringBuilder values = new StringBuilder("VALUES (");
+        for (int colIndex = 0; colIndex < row.size(); colIndex++) {
+            if (colIndex > 0) {
+                values.append(", ");
+            }
+            Object value = row.get(colIndex);
+            if (value == null) {
+                values.append("NULL");
+            } else if (value instanceof String) {
+                values.append("'").append(((String) value).replace("'", "''")).append("'");
+            } else if (value instanceof Date) {
+                values.append("'").append(dateFormat.format(value)).append("'");
+            } else {
+                values.append(value);
+            }
+        }
+        values.append(");\n");
+        writer.write(insertPrefix);
+        writer.write(values.toString());
+    }
+
+    /**
+     * 生成建表语句，优先使用批量读取的表结构，读取失败时按表查询
+     */
+    @SuppressWarnings("unchecked")
+    private String buildCreateTable(String tableName, SchemaMetadata schemaMetadata) {
+        StringBuilder createTableSql = new StringBuilder("CREATE TABLE " + tableName + " (\n");
+
+        // 对表名做处理，如果包含schema前缀需要去掉
+        String tableNameForPk = tableName;
+        if (tableName.contains(".")) {
+            String[] parts = tableName.split("\\.");
+            tableNameForPk = parts[1];
+        }
+
+        SchemaMetadata.TableMetadata tableMetadata = schemaMetadata != null
+                ? schemaMetadata.getTable(tableNameForPk) : null;
+        List<Map<String, String>> columns = tableMetadata != null
+                ? tableMetadata.getColumns() : DatabaseService.getColumns(config, schemaName, tableName);
+        List<String> primaryKeys = tableMetadata != null
+                ? tableMetadata.getPrimaryKeys() : DatabaseService.getPrimaryKeys(config, tableNameForPk);
+
+        // 去除主键列表中的重复项
+        primaryKeys = new ArrayList<>(new LinkedHashSet<>(primaryKeys));
+
+        int columnCount = 0;
+        for (Map<String, String> column : columns) {
+            if (columnCount > 0) {
+                createTableSql.append(",\n");
+            }
+
+            String columnName = column.get("name");
+            String typeName = column.get("type");
+
+            if (columnName == null || typeName == null) {
+                // 尝试使用不同的key - 可能是大写
+                columnName = column.get("COLUMN_NAME");
+                typeName = column.get("TYPE_NAME");
+            }
+
+            if (columnName == null || typeName == null) {
+                // 如果仍然为null，使用默认值避免NullPointerException
+                columnName = column.get("NAME") != null ? column.get("NAME") : "unknown_column";
+                typeName = column.get("TYPE") != null ? column.get("TYPE") : "VARCHAR";
+            }
+
+            // MySQL的完整列定义已包含长度、UNSIGNED和枚举值
+            String columnType = "mysql".equalsIgnoreCase(config.getDatabaseType()) ? column.get("columnType") : null;
+            createTableSql.append("  ").append(columnName).append(" ")
+                    .append(columnType != null ? columnType : typeName);
+
+            // 添加大小信息（如果有）
+            String size = columnType != null ? null : column.get("size");
+            if (size == null) {
+                size = column.get("COLUMN_SIZE");
+            }
+            if (size == null) {
+                size = column.get("SIZE");
+            }
+
+            if (size != null && !size.isEmpty()) {
+                createTableSql.append("(").append(size).append(")");
+            }
+
+            // NOT NULL 约束
+            String nullable = column.get("nullable");
+            if (nullable == null) {
+                nullable = column.get("IS_NULLABLE");
+            }
+
+            if ("NO".equals(nullable)) {
+                createTableSql.append(" NOT NULL");
+            }
+
+            columnCount++;
+        }
+
+        // 添加主键约束
+        if (!primaryKeys.isEmpty()) {
+            createTableSql.append(",\n  PRIMARY KEY (").append(String.join(", ", primaryKeys)).append(")");
+        }
+
+        // 添加索引（针对MySQL）
+        if (tableMetadata != null && "mysql".equalsIgnoreCase(config.getDatabaseType())) {
+            for (SchemaMetadata.IndexMetadata index : tableMetadata.getIndexes()) {
+                String indexDefinition = buildMySqlIndex(index);
+                if (indexDefinition != null) {
+                    createTableSql.append(",\n  ").append(indexDefinition);
+                }
+            }
+        }
+
+        // 添加collate设置（针对MySQL）作为CREATE TABLE的一部分
+        String tableCollation = tableMetadata != null ? tableMetadata.getOption("collation") : null;
+        if (tableCollation == null && tableMetadata == null && "mysql".equalsIgnoreCase(config.getDatabaseType())) {
+            // 尝试查询表的字符集和排序规则
+            try {
+                Map<String, Object> collateResult = DatabaseService.executeQuery(
+                        config,
+                        "SELECT TABLE_COLLATION FROM information_schema.TABLES " +
+                                "WHERE TABLE_SCHEMA = '" + schemaName + "' " +
+                                "AND TABLE_NAME = '" + tableNameForPk + "'"
+                );
+
+                if ((boolean) collateResult.get("success")) {
+                    List<List<Object>> collateData = (List<List<Object>>) collateResult.get("data");
+                    if (!collateData.isEmpty() && !collateData.get(0).isEmpty() && collateData.get(0).get(0) != null) {
+                        tableCollation = collateData.get(0).get(0).toString();
+                    }
+                }
+            } catch (Exception ex) {
+                // 忽略查询字符集错误，不影响整体导出
+                System.err.println("获取表字符集失败: " + ex.getMessage());
+            }
+        }
+
+        if (tableCollation != null) {
+            createTableSql.append("\n) COLLATE = ").append(tableCollation).append(";\n\n");
+        } else {
+            createTableSql.append("\n);\n\n");
+        }
+        return createTableSql.toString();
+    }
+
+    /**
+     * 生成MySQL的索引定义，包括前缀长度和FULLTEXT、SPATIAL索引
+     * @return 索引定义，函数索引等无法还原的索引返回null
+     */
+    private static String buildMySqlIndex(SchemaMetadata.IndexMetadata index) {
+        String type = index.getType() != null ? index.getType().toUpperCase() : "BTREE";
+        StringBuilder definition = new StringBuilder();
+        switch (type) {
+            case "FULLTEXT":
+            case "SPATIAL":
+                definition.append(type).append(" KEY ");
+                break;
+            case "BTREE":
+            case "HASH":
+                definition.append(index.isUnique() ? "UNIQUE KEY " : "KEY ");
+                break;
+            default:
+                return null;
+        }
+        definition.append(quoteMySql(index.getName())).append(" (");
+        for (int i = 0; i < index.getColumns().size(); i++) {
+            String column = index.getColumns().get(i);
+            if (column == null) {
+                // 函数索引没有列名
+                return null;
+            }
+            if (i > 0) {
+                definition.append(", ");
+            }
+            definition.append(quoteMySql(column));
+            Integer prefixLength = index.getPrefixLength(column);
+            if (prefixLength != null) {
+                definition.append('(').append(prefixLength).append(')');
+            }
+        }
+        return definition.append(')').toString();
+    }
+
+    private static String quoteMySql(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,282 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.model.SchemaMetadata;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量读取schema元数据
+ * 每种数据库用少量针对整个schema的目录查询读取所有表的列、主键、索引和表选项，
+ * 不再按表逐个查询；不支持的数据库退回JDBC元数据接口
+ */
+final class SchemaMetadataLoader {
+    private SchemaMetadataLoader() {
+    }
+
+    /**
+     * 按行处理目录查询的结果
+     */
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 读取schema的元数据
+     * @param conn 数据库连接
+     * @param config 连接配置
+     * @param schema schema名，为空时使用连接的默认schema
+     */
+    static SchemaMetadata load(Connection conn, ConnectionConfig config, String schema) throws SQLException {
+        String databaseType = config.getDatabaseType().toLowerCase();
+        switch (databaseType) {
+            case "mysql":
+                return loadMySql(conn, isEmpty(schema) ? conn.getCatalog() : schema);
+            case "postgresql":
+                return loadPostgreSql(conn, isEmpty(schema) ? "public" : schema);
+            case "sqlserver":
+                return loadSqlServer(conn, isEmpty(schema) ? "dbo" : schema);
+            case "oracle":
+                return loadOracle(conn, isEmpty(schema) ? config.getUsername().toUpperCase() : schema);
+            default:
+                return loadFromJdbc(conn, schema);
+        }
+    }
+
+    private static SchemaMetadata loadMySql(Connection conn, String schema) throws SQLException {
+        SchemaMetadata metadata = new SchemaMetadata(schema);
+        query(conn, "SELECT TABLE_NAME, ENGINE, TABLE_COLLATION, TABLE_COMMENT, TABLE_ROWS FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE' ORDER BY TABLE_NAME", schema, rs -> {
+            SchemaMetadata.TableMetadata table = metadata.addTable(rs.getString(1));
+            table.setOption("engine", rs.getString(2));
+            table.setOption("collation", rs.getString(3));
+            table.setOption("comment", rs.getString(4));
+            table.setOption("rows", rs.getString(5));
+        });
+        query(conn, "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, "
+                + "IS_NULLABLE, COLUMN_DEFAULT, COLUMN_TYPE, EXTRA, COLUMN_COMMENT FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, ORDINAL_POSITION", schema, rs -> {
+            Map<String, String> column = addColumn(metadata, rs);
+            if (column != null) {
+                // 与JDBC元数据的TYPE_NAME一致，无符号类型带UNSIGNED；完整定义另存在columnType中
+                String columnType = rs.getString(8);
+                if (columnType != null && columnType.toLowerCase().contains(" unsigned")) {
+                    column.put("type", column.get("type") + " UNSIGNED");
+                }
+                column.put("columnType", columnType);
+                column.put("extra", rs.getString(9));
+                column.put("comment", rs.getString(10));
+            }
+        });
+        query(conn, "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME, SUB_PART, INDEX_TYPE "
+                + "FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX", schema, rs -> {
+            String indexName = rs.getString(2);
+            String columnName = rs.getString(4);
+            addIndexColumn(metadata, rs.getString(1), indexName, "PRIMARY".equals(indexName),
+                    rs.getInt(3) == 0, columnName);
+            SchemaMetadata.TableMetadata table = metadata.getTable(rs.getString(1));
+            if (table != null && !"PRIMARY".equals(indexName)) {
+                SchemaMetadata.IndexMetadata index = table.addIndex(indexName, rs.getInt(3) == 0);
+                int subPart = rs.getInt(5);
+                index.setPrefixLength(columnName, rs.wasNull() ? null : subPart);
+                index.setType(rs.getString(6));
+            }
+        });
+        return metadata;
+    }
+
+    private static SchemaMetadata loadPostgreSql(Connection conn, String schema) throws SQLException {
+        SchemaMetadata metadata = new SchemaMetadata(schema);
+        // reltuples为-1表示表从未分析过
+        query(conn, "SELECT c.relname, obj_description(c.oid, 'pg_class'), "
+                + "CASE WHEN c.reltuples < 0 THEN NULL ELSE c.reltuples::bigint END FROM pg_class c "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                + "WHERE n.nspname = ? AND c.relkind IN ('r', 'p') ORDER BY c.relname", schema, rs -> {
+            SchemaMetadata.TableMetadata table = metadata.addTable(rs.getString(1));
+            table.setOption("comment", rs.getString(2));
+            table.setOption("rows", rs.getString(3));
+        });
+        query(conn, "SELECT table_name, column_name, data_type, character_maximum_length, numeric_precision, "
+                + "is_nullable, column_default FROM information_schema.columns "
+                + "WHERE table_schema = ? ORDER BY table_name, ordinal_position", schema, rs -> addColumn(metadata, rs));
+        query(conn, "SELECT t.relname, i.relname, ix.indisprimary, ix.indisunique, a.attname FROM pg_index ix "
+                + "JOIN pg_class t ON t.oid = ix.indrelid "
+                + "JOIN pg_class i ON i.oid = ix.indexrelid "
+                + "JOIN pg_namespace n ON n.oid = t.relnamespace "
+                + "CROSS JOIN LATERAL unnest(ix.indkey) WITH ORDINALITY AS k(attnum, ord) "
+                + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum "
+                + "WHERE n.nspname = ? ORDER BY t.relname, i.relname, k.ord", schema, rs ->
+                addIndexColumn(metadata, rs.getString(1), rs.getString(2), rs.getBoolean(3),
+                        rs.getBoolean(4), rs.getString(5)));
+        return metadata;
+    }
+
+    private static SchemaMetadata loadSqlServer(Connection conn, String schema) throws SQLException {
+        SchemaMetadata metadata = new SchemaMetadata(schema);
+        query(conn, "SELECT t.name, (SELECT SUM(p.rows) FROM sys.partitions p "
+                + "WHERE p.object_id = t.object_id AND p.index_id IN (0, 1)) FROM sys.tables t "
+                + "JOIN sys.schemas s ON s.schema_id = t.schema_id "
+                + "WHERE s.name = ? ORDER BY t.name", schema,
+                rs -> metadata.addTable(rs.getString(1)).setOption("rows", rs.getString(2)));
+        query(conn, "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, "
+                + "IS_NULLABLE, COLUMN_DEFAULT FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, ORDINAL_POSITION", schema, rs -> addColumn(metadata, rs));
+        query(conn, "SELECT t.name, i.name, i.is_primary_key, i.is_unique, c.name FROM sys.indexes i "
+                + "JOIN sys.tables t ON t.object_id = i.object_id "
+                + "JOIN sys.schemas s ON s.schema_id = t.schema_id "
+                + "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id "
+                + "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id "
+                + "WHERE s.name = ? AND i.name IS NOT NULL AND ic.is_included_column = 0 "
+                + "ORDER BY t.name, i.name, ic.key_ordinal", schema, rs ->
+                addIndexColumn(metadata, rs.getString(1), rs.getString(2), rs.getBoolean(3),
+                        rs.getBoolean(4), rs.getString(5)));
+        return metadata;
+    }
+
+    private static SchemaMetadata loadOracle(Connection conn, String schema) throws SQLException {
+        SchemaMetadata metadata = new SchemaMetadata(schema);
+        query(conn, "SELECT TABLE_NAME, NUM_ROWS FROM ALL_TABLES WHERE OWNER = ? ORDER BY TABLE_NAME", schema,
+                rs -> metadata.addTable(rs.getString(1)).setOption("rows", rs.getString(2)));
+        // DATA_DEFAULT是LONG类型，会关闭行预取，这里不读取
+        query(conn, "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, CHAR_LENGTH, DATA_PRECISION, "
+                + "DECODE(NULLABLE, 'Y', 'YES', 'NO') FROM ALL_TAB_COLUMNS "
+                + "WHERE OWNER = ? ORDER BY TABLE_NAME, COLUMN_ID", schema, rs -> addColumn(metadata, rs));
+        query(conn, "SELECT cc.TABLE_NAME, cc.COLUMN_NAME FROM ALL_CONSTRAINTS c "
+                + "JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME "
+                + "WHERE c.OWNER = ? AND c.CONSTRAINT_TYPE = 'P' ORDER BY cc.TABLE_NAME, cc.POSITION", schema, rs -> {
+            SchemaMetadata.TableMetadata table = metadata.getTable(rs.getString(1));
+            if (table != null) {
+                table.getPrimaryKeys().add(rs.getString(2));
+            }
+        });
+        query(conn, "SELECT i.TABLE_NAME, i.INDEX_NAME, i.UNIQUENESS, c.COLUMN_NAME FROM ALL_INDEXES i "
+                + "JOIN ALL_IND_COLUMNS c ON c.INDEX_OWNER = i.OWNER AND c.INDEX_NAME = i.INDEX_NAME "
+                + "WHERE i.TABLE_OWNER = ? AND NOT EXISTS (SELECT 1 FROM ALL_CONSTRAINTS k "
+                + "WHERE k.OWNER = i.TABLE_OWNER AND k.INDEX_NAME = i.INDEX_NAME AND k.CONSTRAINT_TYPE = 'P') "
+                + "ORDER BY i.TABLE_NAME, i.INDEX_NAME, c.COLUMN_POSITION", schema, rs ->
+                addIndexColumn(metadata, rs.getString(1), rs.getString(2), false,
+                        "UNIQUE".equals(rs.getString(3)), rs.getString(4)));
+        return metadata;
+    }
+
+    /**
+     * 通过JDBC元数据读取，列信息一次读取整个schema，主键和索引仍按表读取
+     */
+    private static SchemaMetadata loadFromJdbc(Connection conn, String schema) throws SQLException {
+        SchemaMetadata metadata = new SchemaMetadata(schema);
+        DatabaseMetaData metaData = conn.getMetaData();
+        String catalog = conn.getCatalog();
+        try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                metadata.addTable(rs.getString("TABLE_NAME"));
+            }
+        }
+        try (ResultSet rs = metaData.getColumns(catalog, schema, "%", "%")) {
+            while (rs.next()) {
+                SchemaMetadata.TableMetadata table = metadata.getTable(rs.getString("TABLE_NAME"));
+                if (table == null) {
+                    continue;
+                }
+                Map<String, String> column = new HashMap<>();
+                column.put("name", rs.getString("COLUMN_NAME"));
+                column.put("type", rs.getString("TYPE_NAME"));
+                column.put("size", rs.getString("COLUMN_SIZE"));
+                column.put("nullable", rs.getString("IS_NULLABLE"));
+                table.getColumns().add(column);
+            }
+        }
+        for (SchemaMetadata.TableMetadata table : metadata.getTables()) {
+            List<String[]> keyColumns = new ArrayList<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, table.getName())) {
+                while (rs.next()) {
+                    keyColumns.add(new String[]{rs.getString("COLUMN_NAME"), rs.getString("KEY_SEQ")});
+                }
+            }
+            keyColumns.sort((a, b) -> Integer.parseInt(a[1]) - Integer.parseInt(b[1]));
+            for (String[] keyColumn : keyColumns) {
+                table.getPrimaryKeys().add(keyColumn[0]);
+            }
+            try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table.getName(), false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String columnName = rs.getString("COLUMN_NAME");
+                    if (indexName == null || columnName == null || indexName.startsWith("sqlite_autoindex")) {
+                        continue;
+                    }
+                    table.addIndex(indexName, !rs.getBoolean("NON_UNIQUE")).getColumns().add(columnName);
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * 执行以schema为参数的目录查询
+     */
+    private static void query(Connection conn, String sql, String schema, RowHandler handler) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(1000);
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * 添加一列，结果集前6列依次为表名、列名、类型、字符长度、数值精度、是否可空，第7列为默认值（可选）
+     * @return 列信息，表不在schema中时返回null
+     */
+    private static Map<String, String> addColumn(SchemaMetadata metadata, ResultSet rs) throws SQLException {
+        SchemaMetadata.TableMetadata table = metadata.getTable(rs.getString(1));
+        if (table == null) {
+            // 视图等非表对象
+            return null;
+        }
+        String size = rs.getString(4);
+        if (size == null) {
+            size = rs.getString(5);
+        }
+        Map<String, String> column = new HashMap<>();
+        column.put("name", rs.getString(2));
+        column.put("type", rs.getString(3).toUpperCase());
+        column.put("size", size != null ? size : "");
+        column.put("nullable", rs.getString(6));
+        if (rs.getMetaData().getColumnCount() >= 7) {
+            column.put("default", rs.getString(7));
+        }
+        table.getColumns().add(column);
+        return column;
+    }
+
+    /**
+     * 添加主键或索引的一列
+     */
+    private static void addIndexColumn(SchemaMetadata metadata, String tableName, String indexName,
+                                       boolean primary, boolean unique, String columnName) {
+        SchemaMetadata.TableMetadata table = metadata.getTable(tableName);
+        if (table == null) {
+            return;
+        }
+        if (primary) {
+            table.getPrimaryKeys().add(columnName);
+        } else {
+            table.addIndex(indexName, unique).getColumns().add(columnName);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,199 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.utils.ConnectionManager;
+import com.database.visualization.utils.InsertCoalescer;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 占用一个连接批量执行SQL语句
+ * 关闭自动提交，每个批次用Statement.addBatch一次发送并提交；批次失败时回滚，
+ * 连接断开的批次换一个连接重试一次，其他失败改为逐条执行，只跳过出错的语句。
+ * 批次中相邻的单行INSERT合并为多行INSERT执行，合并后的大小由insertCoalesceBytes设置限制，
+ * MySQL还不超过服务端的max_allowed_packet。
+ * 不是线程安全的，每个执行线程使用自己的实例
+ */
+public class SqlBatchExecutor implements Closeable {
+    private final ConnectionConfig config;
+    private Connection connection;
+    // 取得连接时的数据库，执行USE切换数据库后重新取连接
+    private String database;
+    // 为null时不合并INSERT
+    private InsertCoalescer coalescer;
+    private boolean coalescerInitialized;
+
+    public SqlBatchExecutor(ConnectionConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 在一个事务中执行一批语句
+     * @param statements 要执行的语句
+     * @return 执行结果，包含success、executed（成功的语句数）和errors（失败语句的错误信息）
+     */
+    public Map<String, Object> execute(List<String> statements) {
+        Map<String, Object> result = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        int executed = 0;
+
+        boolean batched = false;
+        for (int attempt = 0; attempt < 2 && !batched; attempt++) {
+            try {
+                executeBatch(statements);
+                executed = statements.size();
+                batched = true;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                rollback();
+                if (!isConnectionFailure(e)) {
+                    break;
+                }
+                // 连接已断开，换一个连接重试
+                discardConnection();
+            }
+        }
+
+        if (!batched) {
+            // 逐条执行找出失败的语句，其余语句照常提交
+            for (String sql : statements) {
+                try {
+                    executeBatch(Collections.singletonList(sql));
+                    executed++;
+                } catch (SQLException e) {
+                    rollback();
+                    if (isConnectionFailure(e)) {
+                        discardConnection();
+                    }
+                    errors.add(e.getMessage());
+                }
+            }
+        }
+
+        result.put("success", errors.isEmpty());
+        result.put("executed", executed);
+        result.put("errors", errors);
+        return result;
+    }
+
+    private void executeBatch(List<String> statements) throws SQLException {
+        Connection conn = getConnection();
+        if (statements.size() > 1 && getCoalescer(conn) != null) {
+            statements = coalescer.coalesce(statements);
+        }
+        StatementRegistry.RunningStatement running = null;
+        try (Statement stmt = conn.createStatement()) {
+            running = StatementRegistry.register(config, stmt, statements.get(0));
+            if (statements.size() == 1) {
+                stmt.execute(statements.get(0));
+            } else {
+                for (String sql : statements) {
+                    stmt.addBatch(sql);
+                }
+                stmt.executeBatch();
+            }
+            conn.commit();
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection != null && !Objects.equals(database, config.getDatabase())) {
+            discardConnection();
+        }
+        if (connection == null) {
+            database = config.getDatabase();
+            connection = DatabaseService.getConnection(config);
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                discardConnection();
+                throw e;
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * 第一次取得连接后确定合并INSERT的大小上限
+     */
+    private InsertCoalescer getCoalescer(Connection conn) {
+        if (coalescerInitialized) {
+            return coalescer;
+        }
+        coalescerInitialized = true;
+        
+        String type = config.getDatabaseType();
+        long maxBytes = ((Number) ConnectionManager.getSetting("insertCoalesceBytes", 1024 * 1024)).longValue();
+        if ("mysql".equalsIgnoreCase(type)) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+                if (rs.next()) {
+                    // 留出协议头的空间
+                    maxBytes = Math.min(maxBytes, rs.getLong(1) - 1024);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                rollback();
+            }
+        }
+        if (maxBytes > 0 && InsertCoalescer.isSupported(type)) {
+            coalescer = new InsertCoalescer(type, maxBytes);
+        }
+        return coalescer;
+    }
+
+    private void rollback() {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 恢复自动提交后把连接还给连接池
+     */
+    private void discardConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            // 连接已不可用，关闭时由连接池丢弃
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        connection = null;
+    }
+
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLRecoverableException || e instanceof SQLTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+    @Override
+    public void close() {
+        discardConnection();
+    }
+}
@@ -0,0 +1,136 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 正在执行的语句登记表
+ * 执行前登记并设置连接配置的查询超时，执行结束后注销；登记期间可以按线程或连接取消语句
+ */
+public final class StatementRegistry {
+    private static final Set<RunningStatement> runningStatements = ConcurrentHashMap.newKeySet();
+
+    private StatementRegistry() {
+    }
+
+    /**
+     * 登记即将执行的语句，并设置连接配置的查询超时
+     * @param config 连接配置
+     * @param statement 语句
+     * @param sql 执行的SQL，用于显示
+     * @return 登记项，执行结束后需要调用unregister
+     */
+    public static RunningStatement register(ConnectionConfig config, Statement statement, String sql) throws SQLException {
+        if (config.getQueryTimeout() > 0) {
+            statement.setQueryTimeout(config.getQueryTimeout());
+        }
+        RunningStatement running = new RunningStatement(config.getId(), statement, sql);
+        runningStatements.add(running);
+        return running;
+    }
+
+    /**
+     * 注销语句
+     */
+    public static void unregister(RunningStatement running) {
+        if (running != null) {
+            runningStatements.remove(running);
+        }
+    }
+
+    /**
+     * 取消指定线程中正在执行的语句
+     * @return 取消的语句数
+     */
+    public static int cancel(Thread thread) {
+        int count = 0;
+        for (RunningStatement running : runningStatements) {
+            if (running.getThread() == thread) {
+                running.cancel();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 取消指定连接上所有正在执行的语句
+     * @return 取消的语句数
+     */
+    public static int cancelConnection(String connectionId) {
+        int count = 0;
+        for (RunningStatement running : runningStatements) {
+            if (running.getConnectionId().equals(connectionId)) {
+                running.cancel();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取所有正在执行的语句
+     */
+    public static List<RunningStatement> getRunningStatements() {
+        return new ArrayList<>(runningStatements);
+    }
+
+    /**
+     * 一条正在执行的语句
+     */
+    public static final class RunningStatement {
+        private final String connectionId;
+        private final Statement statement;
+        private final String sql;
+        private final Thread thread;
+        private final long startTime;
+        private volatile boolean cancelled = false;
+
+        private RunningStatement(String connectionId, Statement statement, String sql) {
+            this.connectionId = connectionId;
+            this.statement = statement;
+            this.sql = sql;
+            this.thread = Thread.currentThread();
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * 通过驱动通知服务端中止语句
+         */
+        public void cancel() {
+            cancelled = true;
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // 部分驱动不支持取消，忽略
+                e.printStackTrace();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getConnectionId() {
+            return connectionId;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Thread getThread() {
+            return thread;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.database.visualization.controller;
+
+import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.model.PageLoader;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按页读取整张表的数据加载器
+ * 表有单列主键时记录每页的起始键值，顺序滚动使用键集(seek)查询，避免深分页时的OFFSET扫描
+ */
+public class TablePageLoader implements PageLoader {
+    private final ConnectionConfig config;
+    private final String tableName;
+    private final QueryPaginator paginator;
+
+    /**
+     * @param config 连接配置
+     * @param tableName 表名，可以带schema前缀
+     * @param keyColumn 单列主键列名，为null时使用OFFSET分页
+     */
+    public TablePageLoader(ConnectionConfig config, String tableName, String keyColumn) {
+        this.config = config;
+        this.tableName = tableName;
+        this.paginator = new QueryPaginator(PaginationDialect.forConfig(config), "SELECT * FROM " + tableName, keyColumn);
+    }
+
+    /**
+     * 查询表的总行数
+     * 表格模型按int索引行，超过Integer.MAX_VALUE的部分无法浏览，按上限返回
+     */
+    public int countRows() throws SQLException {
+        try (Connection conn = DatabaseService.getConnection(config);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+            return rs.next() ? (int) Math.min(rs.getLong(1), Integer.MAX_VALUE) : 0;
+        }
+    }
+
+    /**
+     * 读取表的列名
+     */
+    public List<String> fetchColumnNames() throws SQLException {
+        List<String> columnNames = new ArrayList<>();
+        try (Connection conn = DatabaseService.getConnection(config);
+             Statement stmt = conn.createStatement()) {
+            stmt.setMaxRows(1);
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName)) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columnNames.add(metaData.getColumnName(i));
+                }
+            }
+        }
+        return columnNames;
+    }
+
+    @Override
+    public List<List<Object>> loadPage(int pageIndex, int pageSize) throws SQLException {
+        QueryPaginator.PageQuery query = paginator.getPageQuery(pageIndex, pageSize);
+
+        List<List<Object>> rows = new ArrayList<>(pageSize);
+        int keyIndex = -1;
+        StatementRegistry.RunningStatement running = null;
+
+        try (Connection conn = DatabaseService.getConnection(config);
+             PreparedStatement stmt = conn.prepareStatement(query.getSql())) {
+            running = StatementRegistry.register(config, stmt, query.getSql());
+            stmt.setFetchSize(pageSize);
+            List<Object> parameters = query.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                List<String> columnNames = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    columnNames.add(metaData.getColumnName(i));
+                }
+                keyIndex = paginator.findKeyIndex(columnNames);
+
+                while (rs.next()) {
+                    List<Object> row = new ArrayList<>(columnCount);
+                    for (int i = 1; i <= columnCount; i++) {
+                        row.add(rs.getObject(i));
+                    }
+                    rows.add(row);
+                }
+            }
+        } finally {
+            StatementRegistry.unregister(running);
+        }
+
+        // 记录下一页的起始键值
+        if (keyIndex >= 0 && !rows.isEmpty()) {
+            paginator.recordPage(pageIndex, pageSize, rows.size(), rows.get(rows.size() - 1).get(keyIndex));
+        }
+
+        return rows;
+    }
+}
@@ -0,0 +1,523 @@
+package com.database.visualization.model;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存储的查询结果
+ * 数值列使用int[]/long[]/double[]原始类型数组，字符串列使用字典编码，空值记录在位图中，
+ * 列类型由ResultSetMetaData.getColumnType决定；实际值与声明类型不符时该列退化为对象数组
+ */
+public class ColumnarResult implements ResultStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<String> columnNames;
+    private final int[] columnTypes;
+    private final ColumnVector[] columns;
+    private int rowCount = 0;
+
+    /**
+     * @param columnNames 列名
+     * @param columnTypes java.sql.Types中的列类型，为null时全部按对象列存储
+     */
+    public ColumnarResult(List<String> columnNames, int[] columnTypes) {
+        this.columnNames = new ArrayList<>(columnNames);
+        this.columnTypes = new int[columnNames.size()];
+        this.columns = new ColumnVector[columnNames.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            this.columnTypes[i] = columnTypes != null && i < columnTypes.length ? columnTypes[i] : Types.OTHER;
+            this.columns[i] = createVector(this.columnTypes[i]);
+        }
+    }
+
+    /**
+     * 由行数据构建列存储结果
+     */
+    public static ColumnarResult fromRows(List<String> columnNames, int[] columnTypes, List<List<Object>> rows) {
+        ColumnarResult result = new ColumnarResult(columnNames, columnTypes);
+        result.appendRows(rows);
+        return result;
+    }
+
+    /**
+     * 根据SQL类型选择列存储方式
+     */
+    private static ColumnVector createVector(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntVector();
+            case Types.BIGINT:
+                return new LongVector();
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return new DoubleVector();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringVector();
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new ObjectVector(BigDecimal.class);
+            case Types.DATE:
+                return new ObjectVector(java.sql.Date.class);
+            case Types.TIME:
+                return new ObjectVector(Time.class);
+            case Types.TIMESTAMP:
+                return new ObjectVector(Timestamp.class);
+            default:
+                return new ObjectVector(Object.class);
+        }
+    }
+
+    /**
+     * SQL类型对应的Java类型，与各列存储方式报告的类型一致
+     */
+    static Class<?> declaredClass(int sqlType) {
+        return createVector(sqlType).valueClass();
+    }
+
+    @Override
+    public void appendRow(List<Object> row) {
+        for (int i = 0; i < columns.length; i++) {
+            Object value = i < row.size() ? row.get(i) : null;
+            if (!columns[i].accepts(value)) {
+                // 实际值与列类型不符（如SQLite的动态类型），退化为对象列
+                columns[i] = columns[i].toObjectVector(rowCount);
+            }
+            columns[i].add(rowCount, value);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void removeRow(int row) {
+        if (row < 0 || row >= rowCount) return;
+        for (ColumnVector column : columns) {
+            column.remove(row, rowCount);
+        }
+        rowCount--;
+    }
+
+    @Override
+    public Object getValue(int row, int column) {
+        if (row < 0 || row >= rowCount || column < 0 || column >= columns.length) {
+            return null;
+        }
+        ColumnVector vector = columns[column];
+        return vector.isNull(row) ? null : vector.get(row);
+    }
+
+    @Override
+    public List<Object> getRow(int row) {
+        List<Object> values = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            values.add(getValue(row, i));
+        }
+        return values;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column < 0 || column >= columns.length) {
+            return Object.class;
+        }
+        return columns[column].valueClass();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int[] getColumnTypes() {
+        return columnTypes.clone();
+    }
+
+    @Override
+    public long estimateHeapBytes() {
+        long bytes = 0;
+        for (ColumnVector column : columns) {
+            bytes += column.heapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 粗略估算单个值在堆中占用的字节数
+     */
+    public static long estimateValueBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal) {
+            return 40 + ((BigDecimal) value).precision() / 2;
+        }
+        return 24;
+    }
+
+    /**
+     * 列存储的基类，空值使用位图记录
+     */
+    private abstract static class ColumnVector {
+        protected BitSet nulls = new BitSet();
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        void add(int row, Object value) {
+            ensureCapacity(row + 1);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                set(row, value);
+            }
+        }
+
+        void remove(int row, int size) {
+            shift(row, size);
+            BitSet shifted = nulls.get(0, row);
+            BitSet tail = nulls.get(row + 1, Math.max(row + 1, size));
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+                shifted.set(row + i);
+            }
+            nulls = shifted;
+        }
+
+        ObjectVector toObjectVector(int size) {
+            ObjectVector vector = new ObjectVector(Object.class);
+            for (int i = 0; i < size; i++) {
+                vector.add(i, isNull(i) ? null : get(i));
+            }
+            return vector;
+        }
+
+        abstract boolean accepts(Object value);
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void set(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract void shift(int row, int size);
+
+        abstract Class<?> valueClass();
+
+        abstract long heapBytes();
+
+        static int grow(int current, int required) {
+            return Math.max(required, Math.max(INITIAL_CAPACITY, current + (current >> 1)));
+        }
+    }
+
+    private static final class IntVector extends ColumnVector {
+        private int[] values = new int[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value == null || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = ((Number) value).intValue();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void shift(int row, int size) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        Class<?> valueClass() {
+            return Integer.class;
+        }
+
+        @Override
+        long heapBytes() {
+            return 4L * values.length;
+        }
+    }
+
+    private static final class LongVector extends ColumnVector {
+        private long[] values = new long[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value == null || value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void shift(int row, int size) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        Class<?> valueClass() {
+            return Long.class;
+        }
+
+        @Override
+        long heapBytes() {
+            return 8L * values.length;
+        }
+    }
+
+    private static final class DoubleVector extends ColumnVector {
+        private double[] values = new double[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value == null || value instanceof Double || value instanceof Float;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void shift(int row, int size) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+        }
+
+        @Override
+        Class<?> valueClass() {
+            return Double.class;
+        }
+
+        @Override
+        long heapBytes() {
+            return 8L * values.length;
+        }
+    }
+
+    /**
+     * 字符串列，先使用字典编码；不同值过多时改为直接存储字符串
+     */
+    private static final class StringVector extends ColumnVector {
+        private static final int DICTIONARY_CHECK_SIZE = 4096;
+
+        private int[] codes = new int[0];
+        private List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> dictionaryIndex = new HashMap<>();
+        private String[] plainValues;
+        private long stringBytes = 0;
+
+        @Override
+        boolean accepts(Object value) {
+            return value == null || value instanceof String;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (plainValues != null) {
+                if (capacity > plainValues.length) {
+                    plainValues = Arrays.copyOf(plainValues, grow(plainValues.length, capacity));
+                }
+            } else if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            String text = (String) value;
+            if (plainValues != null) {
+                plainValues[row] = text;
+                stringBytes += estimateValueBytes(text);
+                return;
+            }
+
+            Integer code = dictionaryIndex.get(text);
+            if (code == null) {
+                // 唯一值占多数时字典没有收益，改为直接存储
+                if (row >= DICTIONARY_CHECK_SIZE && dictionary.size() > row / 2) {
+                    toPlain(row);
+                    plainValues[row] = text;
+                    stringBytes += estimateValueBytes(text);
+                    return;
+                }
+                code = dictionary.size();
+                dictionary.add(text);
+                dictionaryIndex.put(text, code);
+                stringBytes += estimateValueBytes(text) + 48;
+            }
+            codes[row] = code;
+        }
+
+        private void toPlain(int size) {
+            plainValues = new String[codes.length];
+            stringBytes = 0;
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i)) {
+                    plainValues[i] = dictionary.get(codes[i]);
+                    stringBytes += estimateValueBytes(plainValues[i]);
+                }
+            }
+            codes = null;
+            dictionary = null;
+            dictionaryIndex = null;
+        }
+
+        @Override
+        Object get(int row) {
+            return plainValues != null ? plainValues[row] : dictionary.get(codes[row]);
+        }
+
+        @Override
+        void shift(int row, int size) {
+            if (plainValues != null) {
+                System.arraycopy(plainValues, row + 1, plainValues, row, size - row - 1);
+            } else {
+                System.arraycopy(codes, row + 1, codes, row, size - row - 1);
+            }
+        }
+
+        @Override
+        Class<?> valueClass() {
+            return String.class;
+        }
+
+        @Override
+        long heapBytes() {
+            long slots = plainValues != null ? 8L * plainValues.length : 4L * codes.length;
+            return slots + stringBytes;
+        }
+    }
+
+    /**
+     * 无法用原始类型存储的列，声明类型与实际值不符时报告为Object
+     */
+    private static final class ObjectVector extends ColumnVector {
+        private Object[] values = new Object[0];
+        private Class<?> valueClass;
+        private long valueBytes = 0;
+
+        ObjectVector(Class<?> valueClass) {
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (!valueClass.isInstance(value)) {
+                valueClass = Object.class;
+            }
+            values[row] = value;
+            valueBytes += estimateValueBytes(value);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void shift(int row, int size) {
+            System.arraycopy(values, row + 1, values, row, size - row - 1);
+            values[size - 1] = null;
+        }
+
+        @Override
+        ObjectVector toObjectVector(int size) {
+            return this;
+        }
+
+        @Override
+        Class<?> valueClass() {
+            return valueClass;
+        }
+
+        @Override
+        long heapBytes() {
+            return 8L * values.length + valueBytes;
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class ConnectionConfig implements Serializable {
     private String username;
     private String password;
     private String url;
+    private int queryTimeout; // 查询超时秒数，0表示不限制
+    private PoolProfile poolProfile; // 连接池配置，为null时使用数据库类型的默认配置
     
     public ConnectionConfig() {
         this.id = UUID.randomUUID().toString();
@@ -177,6 +179,22 @@ public class ConnectionConfig implements Serializable {
         return url;
     }
 
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setQueryTimeout(int queryTimeout) {
+        this.queryTimeout = Math.max(0, queryTimeout);
+    }
+
+    public PoolProfile getPoolProfile() {
+        return poolProfile;
+    }
+
+    public void setPoolProfile(PoolProfile poolProfile) {
+        this.poolProfile = poolProfile;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -0,0 +1,18 @@
+package com.database.visualization.model;
+
+import java.util.List;
+
+/**
+ * 按页加载数据的接口，供虚拟表格模型在后台拉取缺失的页
+ */
+public interface PageLoader {
+
+    /**
+     * 加载一页数据
+     * @param pageIndex 页号，从0开始
+     * @param pageSize 每页行数
+     * @return 该页的数据行，最后一页可能不足pageSize行
+     * @throws Exception 加载失败
+     */
+    List<List<Object>> loadPage(int pageIndex, int pageSize) throws Exception;
+}
@@ -0,0 +1,140 @@
+package com.database.visualization.model;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 连接池配置
+ * 包括连接池大小、空闲超时以及传给JDBC驱动的连接属性，各数据库类型有各自的默认配置
+ */
+public class PoolProfile implements Serializable {
+    private int maximumPoolSize = 10;
+    private int minimumIdle = 2;
+    private int idleTimeoutSeconds = 600;
+    // 驱动连接属性，如MySQL的rewriteBatchedStatements、SQLite的journal_mode
+    private Map<String, String> dataSourceProperties = new LinkedHashMap<>();
+
+    public PoolProfile() {
+    }
+
+    /**
+     * 获取数据库类型的默认配置，开启驱动的预编译缓存和批量写入优化
+     * @param databaseType 数据库类型
+     */
+    public static PoolProfile defaultFor(String databaseType) {
+        PoolProfile profile = new PoolProfile();
+        Map<String, String> properties = profile.dataSourceProperties;
+        switch (databaseType == null ? "" : databaseType.toLowerCase()) {
+            case "mysql":
+                properties.put("cachePrepStmts", "true");
+                properties.put("prepStmtCacheSize", "250");
+                properties.put("prepStmtCacheSqlLimit", "2048");
+                properties.put("useServerPrepStmts", "true");
+                properties.put("rewriteBatchedStatements", "true");
+                properties.put("useLocalSessionState", "true");
+                properties.put("cacheResultSetMetadata", "true");
+                properties.put("cacheServerConfiguration", "true");
+                properties.put("elideSetAutoCommits", "true");
+                properties.put("maintainTimeStats", "false");
+                break;
+            case "postgresql":
+                properties.put("reWriteBatchedInserts", "true");
+                properties.put("prepareThreshold", "3");
+                properties.put("preparedStatementCacheQueries", "256");
+                break;
+            case "sqlserver":
+                properties.put("useBulkCopyForBatchInsert", "true");
+                properties.put("statementPoolingCacheSize", "100");
+                properties.put("disableStatementPooling", "false");
+                break;
+            case "oracle":
+                properties.put("oracle.jdbc.implicitStatementCacheSize", "100");
+                properties.put("defaultRowPrefetch", "500");
+                break;
+            case "sqlite":
+                // SQLite同一时间只有一个写入者，连接多了只会互相等待锁
+                profile.maximumPoolSize = 4;
+                profile.minimumIdle = 1;
+                properties.put("journal_mode", "WAL");
+                properties.put("synchronous", "NORMAL");
+                properties.put("busy_timeout", "5000");
+                break;
+            default:
+                break;
+        }
+        return profile;
+    }
+
+    /**
+     * 复制一份配置
+     */
+    public PoolProfile copy() {
+        PoolProfile copy = new PoolProfile();
+        copy.maximumPoolSize = maximumPoolSize;
+        copy.minimumIdle = minimumIdle;
+        copy.idleTimeoutSeconds = idleTimeoutSeconds;
+        copy.dataSourceProperties = new LinkedHashMap<>(dataSourceProperties);
+        return copy;
+    }
+
+    /**
+     * 将驱动属性格式化为每行一个 key=value
+     */
+    public String formatProperties() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> entry : dataSourceProperties.entrySet()) {
+            text.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * 解析每行一个 key=value 的驱动属性，忽略空行和#开头的注释
+     */
+    public static Map<String, String> parseProperties(String text) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String line : text.split("\\r?\\n")) {
+            line = line.trim();
+            int equals = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || equals <= 0) {
+                continue;
+            }
+            properties.put(line.substring(0, equals).trim(), line.substring(equals + 1).trim());
+        }
+        return properties;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = Math.max(1, maximumPoolSize);
+    }
+
+    public int getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(int minimumIdle) {
+        this.minimumIdle = Math.max(0, minimumIdle);
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = Math.max(0, idleTimeoutSeconds);
+    }
+
+    public Map<String, String> getDataSourceProperties() {
+        return dataSourceProperties;
+    }
+
+    public void setDataSourceProperties(Map<String, String> dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties != null
+                ? new LinkedHashMap<>(dataSourceProperties) : new LinkedHashMap<>();
+    }
+}
@@ -1,82 +1,156 @@
 package com.database.visualization.model;
 
 import javax.swing.table.AbstractTableModel;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashSet;
+import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * 查询结果表格模型
+ * 数据库返回的原始行按列存储在ColumnarResult中，估算占用超过内存预算时转存到磁盘上的SpilledResult；
+ * 编辑采用写时记录：只保存被编辑单元格的新值，修改行和删除行用BitSet标记，新增行单独存放在原始行之后
  */
 public class QueryResultTableModel extends AbstractTableModel {
     private List<String> columnNames = new ArrayList<>();
-    private List<List<Object>> data = new ArrayList<>();
-    private List<List<Object>> originalData = new ArrayList<>();
+    private ResultStore baseData = new ColumnarResult(new ArrayList<>(), null);
+    private List<List<Object>> insertedRows = new ArrayList<>();
     private boolean editable = false;
-    private int originalRowCount = 0;
-    private List<Integer> modifiedRows = new ArrayList<>();
-    
+
+    // 原始数据允许占用的堆内存字节数，超出后转存到磁盘
+    private long memoryBudget = Long.MAX_VALUE;
+
+    // 行号 -> (列号 -> 编辑后的值)，只包含被编辑过的原始行单元格
+    private Map<Integer, Map<Integer, Object>> editedValues = new HashMap<>();
+    private BitSet modifiedRows = new BitSet();
+    private BitSet deletedRows = new BitSet();
+
     public QueryResultTableModel() {
         this(false);
     }
-    
+
     public QueryResultTableModel(boolean editable) {
         this.editable = editable;
     }
-    
+
     /**
      * 设置数据
      */
     public void setData(List<String> columnNames, List<List<Object>> data) {
+        setData(columnNames, null, data);
+    }
+
+    /**
+     * 设置数据，并按列的SQL类型选择存储方式
+     * @param columnNames 列名列表
+     * @param columnTypes java.sql.Types中的列类型，为null时按对象存储
+     * @param data 数据行
+     */
+    public void setData(List<String> columnNames, int[] columnTypes, List<List<Object>> data) {
+        baseData.close();
         this.columnNames = columnNames;
-        this.data = new ArrayList<>(data);
-        
-        // 保存原始数据用于比较
-        this.originalData = new ArrayList<>();
-        for (List<Object> row : data) {
-            this.originalData.add(new ArrayList<>(row));
+        if (data instanceof SpilledResult.RowList) {
+            // 查询时已经转存到磁盘的结果直接使用，不再读回内存
+            this.baseData = ((SpilledResult.RowList) data).getResult();
+        } else {
+            this.baseData = ColumnarResult.fromRows(columnNames, columnTypes, data);
+            spillIfOverBudget();
         }
-        
-        this.originalRowCount = data.size();
+        this.insertedRows = new ArrayList<>();
+        resetTracking();
         fireTableStructureChanged();
     }
-    
+
+    /**
+     * 设置原始数据的内存预算
+     * @param bytes 字节数，小于等于0表示不限制
+     */
+    public void setMemoryBudget(long bytes) {
+        this.memoryBudget = bytes > 0 ? bytes : Long.MAX_VALUE;
+    }
+
+    /**
+     * 原始数据是否已转存到磁盘
+     */
+    public boolean isSpilled() {
+        return baseData instanceof SpilledResult;
+    }
+
+    /**
+     * 内存中的列存储超出预算时整体转存到磁盘，转存失败则继续留在内存中
+     */
+    private void spillIfOverBudget() {
+        if (isSpilled() || baseData.estimateHeapBytes() <= memoryBudget) {
+            return;
+        }
+        try {
+            ResultStore spilled = SpilledResult.copyOf(baseData);
+            baseData.close();
+            baseData = spilled;
+        } catch (IOException e) {
+            e.printStackTrace();
+            memoryBudget = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 追加一批数据行，用于流式查询分块填充表格
+     */
+    public void appendRows(List<List<Object>> rows) {
+        if (rows == null || rows.isEmpty()) return;
+
+        // 追加的是数据库中已有的行，位于新增行之前
+        int firstRow = baseData.getRowCount();
+        baseData.appendRows(rows);
+        spillIfOverBudget();
+        fireTableRowsInserted(firstRow, firstRow + rows.size() - 1);
+    }
+
     /**
      * 设置数据（List<Map<String, Object>>数据类型）
      * @param dataList 数据列表
      * @param columnList 列名列表
      */
     public void setDataFromMap(List<Map<String, Object>> dataList, List<String> columnList) {
-        this.columnNames = columnList;
-        this.data = new ArrayList<>();
-        
+        List<List<Object>> rows = new ArrayList<>();
+
         // 转换Map数据为列表数据
         for (Map<String, Object> row : dataList) {
             List<Object> rowData = new ArrayList<>();
             for (String column : columnList) {
                 rowData.add(row.get(column));
             }
-            this.data.add(rowData);
+            rows.add(rowData);
         }
-        
-        this.originalData = new ArrayList<>(this.data);
-        this.modifiedRows = new ArrayList<>();
-        
-        fireTableStructureChanged();
+
+        setData(columnList, rows);
     }
-    
+
     /**
      * 清空数据
      */
     public void clear() {
-        columnNames.clear();
-        data.clear();
-        originalData.clear();
-        originalRowCount = 0;
+        baseData.close();
+        columnNames = new ArrayList<>();
+        baseData = new ColumnarResult(columnNames, null);
+        insertedRows = new ArrayList<>();
+        resetTracking();
         fireTableStructureChanged();
     }
-    
+
+    /**
+     * 清空修改跟踪信息
+     */
+    private void resetTracking() {
+        editedValues = new HashMap<>();
+        modifiedRows = new BitSet();
+        deletedRows = new BitSet();
+    }
+
     /**
      * 设置是否可编辑
      */
@@ -84,188 +158,231 @@ public class QueryResultTableModel extends AbstractTableModel {
         this.editable = editable;
         fireTableDataChanged();
     }
-    
+
     /**
      * 添加空行
      */
     public void addEmptyRow() {
-        if (columnNames.isEmpty()) return;
-        
-        List<Object> emptyRow = new ArrayList<>();
-        for (int i = 0; i < columnNames.size(); i++) {
-            emptyRow.add(null);
-        }
-        
-        data.add(emptyRow);
-        fireTableRowsInserted(data.size() - 1, data.size() - 1);
+        addRow();
     }
-    
+
     /**
      * 删除行
      */
     public void removeRow(int row) {
-        if (row >= 0 && row < data.size()) {
-            data.remove(row);
-            if (row < originalData.size()) {
-                originalData.remove(row);
-                originalRowCount--;
+        int baseCount = baseData.getRowCount();
+        if (row < 0 || row >= getRowCount()) {
+            return;
+        }
+
+        if (row >= baseCount) {
+            insertedRows.remove(row - baseCount);
+        } else {
+            baseData.removeRow(row);
+
+            // 被删除行之后的跟踪信息整体前移一行
+            Map<Integer, Map<Integer, Object>> shiftedValues = new HashMap<>();
+            for (Map.Entry<Integer, Map<Integer, Object>> entry : editedValues.entrySet()) {
+                int index = entry.getKey();
+                if (index < row) {
+                    shiftedValues.put(index, entry.getValue());
+                } else if (index > row) {
+                    shiftedValues.put(index - 1, entry.getValue());
+                }
             }
-            fireTableRowsDeleted(row, row);
+            editedValues = shiftedValues;
+            modifiedRows = removeBit(modifiedRows, row);
+        }
+        deletedRows = removeBit(deletedRows, row);
+
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * 移除BitSet中的一位，后面的位前移
+     */
+    private static BitSet removeBit(BitSet bits, int index) {
+        BitSet result = bits.get(0, index);
+        BitSet tail = bits.get(index + 1, Math.max(index + 1, bits.length()));
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            result.set(index + i);
         }
+        return result;
     }
-    
+
     /**
-     * 获取行数据
+     * 获取行的当前数据
      */
     public List<Object> getRowData(int row) {
-        if (row >= 0 && row < data.size()) {
-            return data.get(row);
+        int baseCount = baseData.getRowCount();
+        if (row < 0 || row >= getRowCount()) {
+            return null;
+        }
+        if (row >= baseCount) {
+            return insertedRows.get(row - baseCount);
+        }
+
+        List<Object> values = baseData.getRow(row);
+        Map<Integer, Object> edits = editedValues.get(row);
+        if (edits != null) {
+            for (Map.Entry<Integer, Object> entry : edits.entrySet()) {
+                values.set(entry.getKey(), entry.getValue());
+            }
         }
-        return null;
+        return values;
     }
-    
+
     /**
      * 获取原始行数据
      */
     public List<Object> getOriginalRowData(int row) {
-        if (row >= 0 && row < originalData.size()) {
-            return originalData.get(row);
+        if (row < 0 || row >= baseData.getRowCount()) {
+            return null;
+        }
+        return baseData.getRow(row);
+    }
+
+    /**
+     * 获取某一行中被修改过的列
+     * @param row 行索引
+     * @return 修改过的列索引，按列顺序排列
+     */
+    public List<Integer> getModifiedColumns(int row) {
+        Map<Integer, Object> edits = editedValues.get(row);
+        if (edits == null) {
+            return new ArrayList<>();
         }
-        return null;
+        return new ArrayList<>(new TreeMap<>(edits).keySet());
     }
-    
+
     /**
      * 获取原始行数
      */
     public int getOriginalRowCount() {
-        return originalRowCount;
+        return baseData.getRowCount();
     }
-    
+
     /**
      * 获取列名列表
      */
     public List<String> getColumnNames() {
         return columnNames;
     }
-    
+
+    /**
+     * 获取列的SQL类型
+     */
+    public int[] getColumnTypes() {
+        return baseData.getColumnTypes();
+    }
+
     /**
      * 判断某一行是否被修改
      * @param row 行索引
      * @return 是否被修改
      */
     public boolean isRowModified(int row) {
-        if (row >= data.size() || row >= originalData.size()) {
-            return false;
-        }
-        
-        List<Object> currentRow = data.get(row);
-        List<Object> originalRow = originalData.get(row);
-        
-        if (currentRow.size() != originalRow.size()) {
-            return true;
+        return row >= 0 && row < baseData.getRowCount() && modifiedRows.get(row);
+    }
+
+    /**
+     * 获取所有有改动的行（修改、删除和新增），按行号排序
+     * 只遍历改动记录，不扫描全部数据
+     */
+    public List<Integer> getChangedRows() {
+        BitSet changed = (BitSet) modifiedRows.clone();
+        changed.or(deletedRows);
+        if (!insertedRows.isEmpty()) {
+            changed.set(baseData.getRowCount(), getRowCount());
         }
-        
-        for (int i = 0; i < currentRow.size(); i++) {
-            Object currentValue = currentRow.get(i);
-            Object originalValue = originalRow.get(i);
-            
-            if ((currentValue == null && originalValue != null) || 
-                (currentValue != null && !currentValue.equals(originalValue))) {
-                return true;
-            }
+
+        List<Integer> rows = new ArrayList<>(changed.cardinality());
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            rows.add(i);
         }
-        
-        return modifiedRows.contains(row);
+        return rows;
     }
-    
+
     /**
-     * 重置修改状态
+     * 清除修改记录，丢弃新增行，原始数据保持不变
+     * 修改保存到数据库后调用，调用方随后重新查询，由新的结果替换表格数据；
+     * 不在这里合并修改，避免复制全部行（已转存到磁盘时要重写整个文件）
      */
     public void resetModifiedState() {
-        modifiedRows.clear();
-        // 更新原始数据
-        originalData.clear();
-        for (List<Object> row : data) {
-            originalData.add(new ArrayList<>(row));
-        }
-        originalRowCount = data.size();
+        insertedRows = new ArrayList<>();
+        resetTracking();
         fireTableDataChanged();
     }
-    
+
     /**
      * 添加新行
      */
     public void addRow() {
+        if (columnNames.isEmpty()) return;
+
         List<Object> newRow = new ArrayList<>();
         for (int i = 0; i < columnNames.size(); i++) {
             newRow.add(null);
         }
-        data.add(newRow);
-        // 不添加到原始数据，这是新行标记
-        
-        fireTableRowsInserted(data.size() - 1, data.size() - 1);
+        insertedRows.add(newRow);
+
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
     }
-    
+
     /**
      * 标记行为已删除
      * @param row 行索引
      */
     public void markRowAsDeleted(int row) {
-        // 标记删除状态，实际上可以使用一个额外的列表来记录
-        // 这里仅做示例，实际应用中可以设计一个更复杂的状态管理系统
-        data.get(row).clear(); // 清空行数据作为标记
+        if (row < 0 || row >= getRowCount()) return;
+
+        if (isNewRow(row)) {
+            // 尚未提交的新行直接移除
+            removeRow(row);
+            return;
+        }
+        deletedRows.set(row);
         fireTableRowsUpdated(row, row);
     }
-    
+
     /**
      * 检查行是否被标记为删除
      * @param row 行索引
      * @return 是否被标记为删除
      */
     public boolean isRowDeleted(Integer row) {
-        if (row >= 0 && row < data.size()) {
-            List<Object> rowData = data.get(row);
-            // 检查是否为空列表（我们用空列表标记删除）
-            return rowData.isEmpty();
-        }
-        return false;
+        return row >= 0 && deletedRows.get(row);
     }
-    
+
     /**
      * 检查是否为新行
      * @param row 行索引
      * @return 是否为新行
      */
     public boolean isNewRow(Integer row) {
-        return row >= originalData.size();
+        return row >= baseData.getRowCount();
     }
-    
+
     /**
-     * 清除所有修改标记
+     * 清除所有修改标记，丢弃编辑和新增行
      */
     public void clearModifications() {
-        // 清除修改记录
-        modifiedRows.clear();
-        
-        // 重置数据为原始数据
-        data.clear();
-        for (List<Object> row : originalData) {
-            data.add(new ArrayList<>(row));
-        }
-        
+        insertedRows = new ArrayList<>();
+        resetTracking();
         fireTableDataChanged();
     }
-    
+
     @Override
     public int getRowCount() {
-        return data.size();
+        return baseData.getRowCount() + insertedRows.size();
     }
-    
+
     @Override
     public int getColumnCount() {
         return columnNames.size();
     }
-    
+
     @Override
     public String getColumnName(int columnIndex) {
         if (columnIndex >= 0 && columnIndex < columnNames.size()) {
@@ -273,54 +390,72 @@ public class QueryResultTableModel extends AbstractTableModel {
         }
         return "";
     }
-    
+
     @Override
     public Class<?> getColumnClass(int columnIndex) {
-        if (data.isEmpty()) {
-            return Object.class;
-        }
-        
-        Object value = getValueAt(0, columnIndex);
-        return (value != null) ? value.getClass() : Object.class;
+        // 由列的SQL类型决定，不再根据第一行的值推断
+        return baseData.getColumnClass(columnIndex);
     }
-    
+
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        if (rowIndex >= 0 && rowIndex < data.size() &&
-            columnIndex >= 0 && columnIndex < columnNames.size()) {
-            List<Object> row = data.get(rowIndex);
-            if (columnIndex < row.size()) {
-                return row.get(columnIndex);
-            }
+        if (rowIndex < 0 || rowIndex >= getRowCount() || columnIndex < 0 || columnIndex >= columnNames.size()) {
+            return null;
+        }
+        // 已标记删除的行显示为空
+        if (deletedRows.get(rowIndex)) {
+            return null;
+        }
+
+        int baseCount = baseData.getRowCount();
+        if (rowIndex >= baseCount) {
+            List<Object> row = insertedRows.get(rowIndex - baseCount);
+            return columnIndex < row.size() ? row.get(columnIndex) : null;
         }
-        return null;
+
+        Map<Integer, Object> edits = editedValues.get(rowIndex);
+        if (edits != null && edits.containsKey(columnIndex)) {
+            return edits.get(columnIndex);
+        }
+        return baseData.getValue(rowIndex, columnIndex);
     }
-    
+
     @Override
     public boolean isCellEditable(int rowIndex, int columnIndex) {
-        return editable;
+        return editable && !deletedRows.get(rowIndex);
     }
-    
+
     @Override
     public void setValueAt(Object value, int row, int col) {
-        if (editable && row < data.size() && col < columnNames.size()) {
-            // 获取当前值进行比较
-            Object currentValue = data.get(row).get(col);
-            
-            // 值相同则不需要标记修改
-            if ((currentValue == null && value == null) || 
-                (currentValue != null && currentValue.equals(value))) {
-                return;
+        if (!editable || row < 0 || row >= getRowCount() || col < 0 || col >= columnNames.size()) {
+            return;
+        }
+
+        // 获取当前值进行比较，值相同则不需要标记修改
+        if (Objects.equals(getValueAt(row, col), value)) {
+            return;
+        }
+
+        int baseCount = baseData.getRowCount();
+        if (row >= baseCount) {
+            insertedRows.get(row - baseCount).set(col, value);
+        } else {
+            Map<Integer, Object> edits = editedValues.computeIfAbsent(row, k -> new HashMap<>());
+            if (Objects.equals(baseData.getValue(row, col), value)) {
+                // 改回原始值，撤销该单元格的修改记录
+                edits.remove(col);
+            } else {
+                edits.put(col, value);
             }
-            
-            // 设置新值
-            data.get(row).set(col, value);
-            fireTableCellUpdated(row, col);
-            
-            // 记录修改的行
-            if (row < originalRowCount && !modifiedRows.contains(row)) {
-                modifiedRows.add(row);
+
+            if (edits.isEmpty()) {
+                editedValues.remove(row);
+                modifiedRows.clear(row);
+            } else {
+                modifiedRows.set(row);
             }
         }
+
+        fireTableCellUpdated(row, col);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.database.visualization.model;
+
+import java.util.List;
+
+/**
+ * 查询结果的底层存储，按行号和列号随机访问
+ */
+public interface ResultStore {
+
+    /**
+     * 追加一行数据
+     */
+    void appendRow(List<Object> row);
+
+    /**
+     * 追加多行数据
+     */
+    default void appendRows(List<List<Object>> rows) {
+        for (List<Object> row : rows) {
+            appendRow(row);
+        }
+    }
+
+    /**
+     * 删除一行，后面的行前移
+     */
+    void removeRow(int row);
+
+    /**
+     * 获取单元格的值
+     */
+    Object getValue(int row, int column);
+
+    /**
+     * 获取一行数据，每次返回新的列表
+     */
+    List<Object> getRow(int row);
+
+    /**
+     * 获取列的Java类型
+     */
+    Class<?> getColumnClass(int column);
+
+    int getRowCount();
+
+    int getColumnCount();
+
+    List<String> getColumnNames();
+
+    /**
+     * 获取列的SQL类型
+     */
+    int[] getColumnTypes();
+
+    /**
+     * 估算当前占用的堆内存字节数
+     */
+    long estimateHeapBytes();
+
+    /**
+     * 释放存储占用的资源
+     */
+    default void close() {
+    }
+}
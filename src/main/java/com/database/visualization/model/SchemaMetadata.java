@@ -0,0 +1,150 @@
+package com.database.visualization.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个schema的结构元数据
+ * 包括各表的列、主键、索引和表选项，由批量查询一次读取整个schema
+ */
+public class SchemaMetadata {
+    private final String schema;
+    private final Map<String, TableMetadata> tables = new LinkedHashMap<>();
+    private final Map<String, TableMetadata> tablesByLowerName = new HashMap<>();
+
+    public SchemaMetadata(String schema) {
+        this.schema = schema;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * 获取表，表名不区分大小写
+     * @return 表元数据，不存在时返回null
+     */
+    public TableMetadata getTable(String name) {
+        TableMetadata table = tables.get(name);
+        return table != null || name == null ? table : tablesByLowerName.get(name.toLowerCase());
+    }
+
+    /**
+     * 添加表，已存在时返回原有的表
+     */
+    public TableMetadata addTable(String name) {
+        TableMetadata table = tables.computeIfAbsent(name, TableMetadata::new);
+        tablesByLowerName.putIfAbsent(name.toLowerCase(), table);
+        return table;
+    }
+
+    public Collection<TableMetadata> getTables() {
+        return tables.values();
+    }
+
+    /**
+     * 表的元数据
+     */
+    public static class TableMetadata {
+        private final String name;
+        // 列信息的键与DatabaseService.getColumns一致：name、type、size、nullable
+        private final List<Map<String, String>> columns = new ArrayList<>();
+        private final List<String> primaryKeys = new ArrayList<>();
+        private final Map<String, IndexMetadata> indexes = new LinkedHashMap<>();
+        // 表选项，如engine、collation、comment，rows为统计信息中的估计行数
+        private final Map<String, String> options = new HashMap<>();
+
+        public TableMetadata(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Map<String, String>> getColumns() {
+            return columns;
+        }
+
+        public List<String> getPrimaryKeys() {
+            return primaryKeys;
+        }
+
+        /**
+         * 获取索引，不存在时创建
+         */
+        public IndexMetadata addIndex(String indexName, boolean unique) {
+            return indexes.computeIfAbsent(indexName, key -> new IndexMetadata(key, unique));
+        }
+
+        public Collection<IndexMetadata> getIndexes() {
+            return indexes.values();
+        }
+
+        public String getOption(String key) {
+            return options.get(key);
+        }
+
+        public void setOption(String key, String value) {
+            if (value != null) {
+                options.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * 索引的元数据，不包括主键
+     */
+    public static class IndexMetadata {
+        private final String name;
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+        // 只索引前若干个字符的列，列名 -> 前缀长度
+        private final Map<String, Integer> prefixLengths = new HashMap<>();
+        // 索引类型，如BTREE、FULLTEXT、SPATIAL，未知时为null
+        private String type;
+
+        public IndexMetadata(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        /**
+         * 获取列的前缀长度
+         * @return 前缀长度，索引整列时返回null
+         */
+        public Integer getPrefixLength(String column) {
+            return prefixLengths.get(column);
+        }
+
+        public void setPrefixLength(String column, Integer length) {
+            if (length != null) {
+                prefixLengths.put(column, length);
+            }
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+    }
+}
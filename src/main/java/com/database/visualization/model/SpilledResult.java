@@ -0,0 +1,528 @@
+package com.database.visualization.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 溢出到磁盘的查询结果
+ * 行按紧凑的二进制格式顺序写入临时文件，文件分段内存映射；每隔INDEX_STRIDE行记录一个偏移量，
+ * 读取时从最近的索引点按行长度跳到目标行，堆中只保留稀疏索引和最近读取的一行
+ */
+public class SpilledResult implements ResultStore {
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int INDEX_STRIDE = 32;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_STRING = 4;
+    private static final byte TAG_DECIMAL = 5;
+    private static final byte TAG_TIMESTAMP = 6;
+    private static final byte TAG_DATE = 7;
+    private static final byte TAG_TIME = 8;
+    private static final byte TAG_BOOLEAN = 9;
+    private static final byte TAG_BYTES = 10;
+    private static final byte TAG_SHORT = 11;
+    private static final byte TAG_BYTE = 12;
+    private static final byte TAG_FLOAT = 13;
+    private static final byte TAG_BIG_INTEGER = 14;
+    private static final byte TAG_LOCAL_DATE_TIME = 15;
+    private static final byte TAG_LOCAL_DATE = 16;
+    private static final byte TAG_LOCAL_TIME = 17;
+
+    private final List<String> columnNames;
+    private final int[] columnTypes;
+    private final Class<?>[] columnClasses;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    // 第 i*INDEX_STRIDE 个物理行在文件中的偏移
+    private long[] rowOffsets = new long[64];
+    private int physicalRowCount = 0;
+    private long writePosition = 0;
+
+    // 已删除的物理行号，升序；删除操作很少，逻辑行号换算时线性跳过
+    private int[] removedRows = new int[0];
+
+    private final RowBuffer encodeBuffer = new RowBuffer();
+    private final DataOutputStream encoder = new DataOutputStream(encodeBuffer);
+
+    private int cachedRow = -1;
+    private List<Object> cachedValues;
+    private boolean closed = false;
+
+    /**
+     * @param columnNames 列名
+     * @param columnTypes java.sql.Types中的列类型，为null时全部按对象列处理
+     */
+    public SpilledResult(List<String> columnNames, int[] columnTypes) throws IOException {
+        this.columnNames = new ArrayList<>(columnNames);
+        this.columnTypes = new int[columnNames.size()];
+        this.columnClasses = new Class<?>[columnNames.size()];
+        for (int i = 0; i < this.columnTypes.length; i++) {
+            this.columnTypes[i] = columnTypes != null && i < columnTypes.length ? columnTypes[i] : Types.OTHER;
+            this.columnClasses[i] = ColumnarResult.declaredClass(this.columnTypes[i]);
+        }
+
+        this.file = File.createTempFile("query-result-", ".spill");
+        this.file.deleteOnExit();
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * 将已有结果复制到磁盘
+     */
+    public static SpilledResult copyOf(ResultStore source) throws IOException {
+        SpilledResult result = new SpilledResult(source.getColumnNames(), source.getColumnTypes());
+        for (int i = 0; i < source.getRowCount(); i++) {
+            result.appendRow(source.getRow(i));
+        }
+        return result;
+    }
+
+    /**
+     * 以行列表的形式访问结果，供只认识List<List<Object>>的调用方使用；
+     * QueryResultTableModel识别该列表并直接使用磁盘数据
+     */
+    public RowList asRowList() {
+        return new RowList(this);
+    }
+
+    @Override
+    public synchronized void appendRow(List<Object> row) {
+        checkOpen();
+        try {
+            encodeBuffer.reset();
+            for (int i = 0; i < columnClasses.length; i++) {
+                Object value = normalize(i, i < row.size() ? row.get(i) : null);
+                if (value != null && !columnClasses[i].isInstance(value)) {
+                    // 实际值与列类型不符，与列存储一致地报告为Object
+                    columnClasses[i] = Object.class;
+                }
+                encodeValue(value);
+            }
+            encoder.flush();
+
+            if (physicalRowCount % INDEX_STRIDE == 0) {
+                int slot = physicalRowCount / INDEX_STRIDE;
+                if (slot >= rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length * 2);
+                }
+                rowOffsets[slot] = writePosition;
+            }
+
+            int length = encodeBuffer.size();
+            write(writePosition, ByteBuffer.allocate(4).putInt(length).array(), 4);
+            write(writePosition + 4, encodeBuffer.buffer(), length);
+            writePosition += 4 + length;
+            physicalRowCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void removeRow(int row) {
+        if (row < 0 || row >= getRowCount()) return;
+
+        int physical = toPhysical(row);
+        int index = Arrays.binarySearch(removedRows, physical);
+        int insertAt = -index - 1;
+        int[] updated = new int[removedRows.length + 1];
+        System.arraycopy(removedRows, 0, updated, 0, insertAt);
+        updated[insertAt] = physical;
+        System.arraycopy(removedRows, insertAt, updated, insertAt + 1, removedRows.length - insertAt);
+        removedRows = updated;
+        cachedRow = -1;
+        cachedValues = null;
+    }
+
+    @Override
+    public synchronized Object getValue(int row, int column) {
+        if (row < 0 || row >= getRowCount() || column < 0 || column >= columnClasses.length || closed) {
+            return null;
+        }
+        if (row != cachedRow) {
+            cachedValues = readRow(toPhysical(row));
+            cachedRow = row;
+        }
+        return cachedValues.get(column);
+    }
+
+    @Override
+    public synchronized List<Object> getRow(int row) {
+        if (row < 0 || row >= getRowCount() || closed) {
+            return new ArrayList<>();
+        }
+        if (row != cachedRow) {
+            cachedValues = readRow(toPhysical(row));
+            cachedRow = row;
+        }
+        return new ArrayList<>(cachedValues);
+    }
+
+    @Override
+    public synchronized Class<?> getColumnClass(int column) {
+        if (column < 0 || column >= columnClasses.length) {
+            return Object.class;
+        }
+        return columnClasses[column];
+    }
+
+    @Override
+    public synchronized int getRowCount() {
+        return physicalRowCount - removedRows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int[] getColumnTypes() {
+        return columnTypes.clone();
+    }
+
+    @Override
+    public synchronized long estimateHeapBytes() {
+        return 8L * rowOffsets.length + 4L * removedRows.length + encodeBuffer.buffer().length;
+    }
+
+    /**
+     * 获取磁盘上已写入的字节数
+     */
+    public synchronized long getFileSize() {
+        return writePosition;
+    }
+
+    /**
+     * 关闭并删除临时文件；映射的内存在缓冲区被回收后释放
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        segments.clear();
+        cachedValues = null;
+        try {
+            channel.close();
+            randomAccessFile.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!file.delete()) {
+            // 部分平台在映射释放前无法删除，退出时再删除
+            file.deleteOnExit();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("结果已关闭");
+        }
+    }
+
+    /**
+     * 逻辑行号换算为物理行号，跳过已删除的行
+     */
+    private int toPhysical(int row) {
+        int physical = row;
+        for (int removed : removedRows) {
+            if (removed <= physical) {
+                physical++;
+            } else {
+                break;
+            }
+        }
+        return physical;
+    }
+
+    /**
+     * 整数类型按列存储的规则统一装箱，读取时与内存中的结果类型一致
+     */
+    private Object normalize(int column, Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> declared = columnClasses[column];
+        if (declared == Integer.class && (value instanceof Short || value instanceof Byte)) {
+            return ((Number) value).intValue();
+        }
+        if (declared == Long.class && (value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+            return ((Number) value).longValue();
+        }
+        if (declared == Double.class && value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        return value;
+    }
+
+    private void encodeValue(Object value) throws IOException {
+        if (value == null) {
+            encoder.writeByte(TAG_NULL);
+        } else if (value instanceof Integer) {
+            encoder.writeByte(TAG_INT);
+            encoder.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            encoder.writeByte(TAG_LONG);
+            encoder.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            encoder.writeByte(TAG_DOUBLE);
+            encoder.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            encoder.writeByte(TAG_STRING);
+            writeText((String) value);
+        } else if (value instanceof BigDecimal) {
+            encoder.writeByte(TAG_DECIMAL);
+            writeText(value.toString());
+        } else if (value instanceof Timestamp) {
+            encoder.writeByte(TAG_TIMESTAMP);
+            encoder.writeLong(((Timestamp) value).getTime());
+            encoder.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            encoder.writeByte(TAG_DATE);
+            encoder.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            encoder.writeByte(TAG_TIME);
+            encoder.writeLong(((Time) value).getTime());
+        } else if (value instanceof Boolean) {
+            encoder.writeByte(TAG_BOOLEAN);
+            encoder.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            encoder.writeByte(TAG_BYTES);
+            encoder.writeInt(((byte[]) value).length);
+            encoder.write((byte[]) value);
+        } else if (value instanceof Short) {
+            encoder.writeByte(TAG_SHORT);
+            encoder.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            encoder.writeByte(TAG_BYTE);
+            encoder.writeByte((Byte) value);
+        } else if (value instanceof Float) {
+            encoder.writeByte(TAG_FLOAT);
+            encoder.writeFloat((Float) value);
+        } else if (value instanceof BigInteger) {
+            encoder.writeByte(TAG_BIG_INTEGER);
+            writeText(value.toString());
+        } else if (value instanceof LocalDateTime) {
+            encoder.writeByte(TAG_LOCAL_DATE_TIME);
+            writeText(value.toString());
+        } else if (value instanceof LocalDate) {
+            encoder.writeByte(TAG_LOCAL_DATE);
+            writeText(value.toString());
+        } else if (value instanceof LocalTime) {
+            encoder.writeByte(TAG_LOCAL_TIME);
+            writeText(value.toString());
+        } else {
+            // 其他驱动特有类型按显示文本保存
+            encoder.writeByte(TAG_STRING);
+            writeText(value.toString());
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        encoder.writeInt(bytes.length);
+        encoder.write(bytes);
+    }
+
+    private List<Object> readRow(int physicalRow) {
+        long position = rowOffsets[physicalRow / INDEX_STRIDE];
+        for (int i = physicalRow % INDEX_STRIDE; i > 0; i--) {
+            position += 4 + readInt(position);
+        }
+
+        int length = readInt(position);
+        byte[] bytes = new byte[length];
+        read(position + 4, bytes, length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<Object> values = new ArrayList<>(columnClasses.length);
+        for (int i = 0; i < columnClasses.length; i++) {
+            values.add(decodeValue(buffer));
+        }
+        return values;
+    }
+
+    private static Object decodeValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INT:
+                return buffer.getInt();
+            case TAG_LONG:
+                return buffer.getLong();
+            case TAG_DOUBLE:
+                return buffer.getDouble();
+            case TAG_STRING:
+                return readText(buffer);
+            case TAG_DECIMAL:
+                return new BigDecimal(readText(buffer));
+            case TAG_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            }
+            case TAG_DATE:
+                return new java.sql.Date(buffer.getLong());
+            case TAG_TIME:
+                return new Time(buffer.getLong());
+            case TAG_BOOLEAN:
+                return buffer.get() != 0;
+            case TAG_BYTES: {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return bytes;
+            }
+            case TAG_SHORT:
+                return buffer.getShort();
+            case TAG_BYTE:
+                return buffer.get();
+            case TAG_FLOAT:
+                return buffer.getFloat();
+            case TAG_BIG_INTEGER:
+                return new BigInteger(readText(buffer));
+            case TAG_LOCAL_DATE_TIME:
+                return LocalDateTime.parse(readText(buffer));
+            case TAG_LOCAL_DATE:
+                return LocalDate.parse(readText(buffer));
+            case TAG_LOCAL_TIME:
+                return LocalTime.parse(readText(buffer));
+            default:
+                throw new IllegalStateException("无法识别的数据标记: " + tag);
+        }
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String text = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return text;
+    }
+
+    /**
+     * 获取映射段，不存在时映射新的一段，文件随之扩展
+     */
+    private MappedByteBuffer segment(int index) {
+        try {
+            while (segments.size() <= index) {
+                long start = segments.size() * SEGMENT_SIZE;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+            }
+            return segments.get(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 写入字节，跨段时拆分
+     */
+    private void write(long position, byte[] data, int length) {
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer target = segment((int) (position / SEGMENT_SIZE)).duplicate();
+            int segmentOffset = (int) (position % SEGMENT_SIZE);
+            int count = (int) Math.min(length - offset, SEGMENT_SIZE - segmentOffset);
+            target.position(segmentOffset);
+            target.put(data, offset, count);
+            offset += count;
+            position += count;
+        }
+    }
+
+    /**
+     * 读取字节，跨段时拼接
+     */
+    private void read(long position, byte[] data, int length) {
+        int offset = 0;
+        while (offset < length) {
+            ByteBuffer source = segment((int) (position / SEGMENT_SIZE)).duplicate();
+            int segmentOffset = (int) (position % SEGMENT_SIZE);
+            int count = (int) Math.min(length - offset, SEGMENT_SIZE - segmentOffset);
+            source.position(segmentOffset);
+            source.get(data, offset, count);
+            offset += count;
+            position += count;
+        }
+    }
+
+    private int readInt(long position) {
+        byte[] bytes = new byte[4];
+        read(position, bytes, 4);
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    /**
+     * 可直接访问内部数组的输出缓冲，避免每行复制一次
+     */
+    private static final class RowBuffer extends ByteArrayOutputStream {
+        RowBuffer() {
+            super(256);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * 磁盘结果的只读行列表视图
+     */
+    public static final class RowList extends AbstractList<List<Object>> {
+        private final SpilledResult result;
+
+        private RowList(SpilledResult result) {
+            this.result = result;
+        }
+
+        public SpilledResult getResult() {
+            return result;
+        }
+
+        @Override
+        public List<Object> get(int index) {
+            if (index < 0 || index >= result.getRowCount()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return result.getRow(index);
+        }
+
+        @Override
+        public int size() {
+            return result.getRowCount();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.database.visualization.model;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟查询结果表格模型
+ * 只在内存中保留可视区域附近的若干页数据，缺失的页在后台线程中加载，滚出的页按LRU淘汰
+ */
+public class VirtualQueryResultTableModel extends AbstractTableModel {
+    private final List<String> columnNames;
+    private final int rowCount;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final PageLoader pageLoader;
+
+    // 已加载的页，按访问顺序淘汰最久未访问的页
+    private final LinkedHashMap<Integer, List<List<Object>>> pages;
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private final ExecutorService loadExecutor;
+
+    // 最近一次访问的页，用于丢弃已经滚出可视区域的加载请求
+    private volatile int lastAccessedPage = 0;
+    private volatile boolean disposed = false;
+    private volatile String lastError;
+
+    public VirtualQueryResultTableModel(List<String> columnNames, int rowCount, int pageSize,
+                                        int maxCachedPages, PageLoader pageLoader) {
+        this.columnNames = new ArrayList<>(columnNames);
+        this.rowCount = rowCount;
+        this.pageSize = pageSize;
+        this.maxCachedPages = Math.max(2, maxCachedPages);
+        this.pageLoader = pageLoader;
+        this.pages = new LinkedHashMap<Integer, List<List<Object>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<List<Object>>> eldest) {
+                return size() > VirtualQueryResultTableModel.this.maxCachedPages;
+            }
+        };
+        // 单线程顺序加载，避免同时占用多个数据库连接
+        this.loadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "virtual-table-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 释放后台加载线程和缓存的数据
+     */
+    public void dispose() {
+        disposed = true;
+        loadExecutor.shutdownNow();
+        pages.clear();
+    }
+
+    /**
+     * 获取最近一次加载失败的错误信息
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * 获取当前缓存的页数
+     */
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * 获取列名列表
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        if (columnIndex >= 0 && columnIndex < columnNames.size()) {
+            return columnNames.get(columnIndex);
+        }
+        return "";
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount || columnIndex < 0 || columnIndex >= columnNames.size()) {
+            return null;
+        }
+
+        int pageIndex = rowIndex / pageSize;
+        lastAccessedPage = pageIndex;
+
+        List<List<Object>> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            // 预取下一页，使向下滚动更平滑
+            if ((pageIndex + 1) * pageSize < rowCount) {
+                requestPage(pageIndex + 1);
+            }
+            return null;
+        }
+
+        int offsetInPage = rowIndex - pageIndex * pageSize;
+        if (offsetInPage < page.size()) {
+            List<Object> row = page.get(offsetInPage);
+            if (columnIndex < row.size()) {
+                return row.get(columnIndex);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 请求在后台加载指定页（仅在EDT中调用）
+     */
+    private void requestPage(int pageIndex) {
+        if (disposed || pages.containsKey(pageIndex) || !loadingPages.add(pageIndex)) {
+            return;
+        }
+
+        loadExecutor.submit(() -> {
+            // 页已经滚出缓存范围，不再加载
+            if (disposed || Math.abs(pageIndex - lastAccessedPage) > maxCachedPages / 2) {
+                SwingUtilities.invokeLater(() -> loadingPages.remove(pageIndex));
+                return;
+            }
+
+            List<List<Object>> page;
+            try {
+                page = pageLoader.loadPage(pageIndex, pageSize);
+            } catch (Exception e) {
+                e.printStackTrace();
+                lastError = e.getMessage();
+                page = null;
+            }
+
+            List<List<Object>> loadedPage = page;
+            SwingUtilities.invokeLater(() -> {
+                loadingPages.remove(pageIndex);
+                if (disposed || loadedPage == null) {
+                    return;
+                }
+                pages.put(pageIndex, loadedPage);
+
+                int firstRow = pageIndex * pageSize;
+                int lastRow = Math.min(rowCount, firstRow + pageSize) - 1;
+                fireTableRowsUpdated(firstRow, lastRow);
+            });
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.database.visualization.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 导出文件的压缩格式
+ * 内置gzip，其他格式通过ServiceLoader加载：在META-INF/services/com.database.visualization.utils.CompressionCodec
+ * 中登记实现类。多个压缩流首尾相接后必须仍能作为一个流解压，SQL导出会把分段文件直接拼接
+ */
+public interface CompressionCodec {
+
+    /**
+     * 显示在文件选择对话框中的名称，如GZIP
+     */
+    String getName();
+
+    /**
+     * 文件扩展名，不带点，如gz
+     */
+    String getExtension();
+
+    /**
+     * 包装输出流，关闭返回的流时同时关闭out
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * 包装输入流，关闭返回的流时同时关闭in
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,80 @@
+package com.database.visualization.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 可用的压缩格式
+ */
+public final class CompressionCodecs {
+    private static final List<CompressionCodec> codecs = loadCodecs();
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * 所有压缩格式，内置的gzip在最前
+     */
+    public static List<CompressionCodec> getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * 按文件扩展名确定压缩格式
+     * @return 压缩格式，文件没有压缩时返回null
+     */
+    public static CompressionCodec forFile(Path file) {
+        return forFile(file.getFileName().toString());
+    }
+
+    public static CompressionCodec forFile(String fileName) {
+        String name = fileName.toLowerCase();
+        for (CompressionCodec codec : codecs) {
+            if (name.endsWith("." + codec.getExtension().toLowerCase())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    private static List<CompressionCodec> loadCodecs() {
+        List<CompressionCodec> list = new ArrayList<>();
+        list.add(new GzipCodec());
+        for (CompressionCodec codec : ServiceLoader.load(CompressionCodec.class)) {
+            list.add(codec);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * gzip格式，按块并行压缩
+     */
+    private static final class GzipCodec implements CompressionCodec {
+        @Override
+        public String getName() {
+            return "GZIP";
+        }
+
+        @Override
+        public String getExtension() {
+            return "gz";
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new ParallelGzipOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+    }
+}
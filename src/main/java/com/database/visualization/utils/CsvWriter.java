@@ -0,0 +1,178 @@
+package com.database.visualization.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSV文件写入器
+ * 若干行先拼接在同一个StringBuilder中，积累到一定长度后编码写入通道，写入过程中不产生逐个单元格的字符串。
+ * 字段按RFC 4180转义：NULL写为空字段，空字符串写为""，与CsvRowSource的读取规则一致
+ */
+public class CsvWriter implements Closeable {
+    // 行缓冲达到该字符数时编码写出
+    private static final int FLUSH_CHARS = 64 * 1024;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    private final StringBuilder line = new StringBuilder(FLUSH_CHARS + 4096);
+    private char[] chars = new char[FLUSH_CHARS + 4096];
+    private boolean rowStarted;
+    private boolean closed;
+
+    public CsvWriter(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // 文件通道直接写入堆外缓冲区，避免再复制一次
+        this.bytes = channel instanceof FileChannel
+                ? ByteBuffer.allocateDirect(BUFFER_BYTES) : ByteBuffer.allocate(BUFFER_BYTES);
+    }
+
+    /**
+     * 创建UTF-8编码的CSV文件，文件开头写入BOM以便Excel识别编码；按扩展名压缩
+     */
+    public static CsvWriter open(Path file) throws IOException {
+        CompressionCodec codec = CompressionCodecs.forFile(file);
+        WritableByteChannel channel = codec == null
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)
+                : Channels.newChannel(codec.compress(Files.newOutputStream(file)));
+        CsvWriter writer = new CsvWriter(channel, StandardCharsets.UTF_8);
+        writer.line.append('\uFEFF');
+        return writer;
+    }
+
+    /**
+     * 写入NULL
+     */
+    public void writeNull() {
+        beginField();
+    }
+
+    /**
+     * 写入文本，包含逗号、引号或换行时加引号转义
+     */
+    public void writeText(CharSequence value) {
+        StringBuilder out = beginField();
+        int length = value.length();
+        boolean quote = length == 0;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * 开始一个不需要转义的字段，如数字和日期，调用方直接追加到返回的缓冲区
+     */
+    public StringBuilder beginField() {
+        if (rowStarted) {
+            line.append(',');
+        }
+        rowStarted = true;
+        return line;
+    }
+
+    /**
+     * 结束当前行
+     */
+    public void endRow() throws IOException {
+        line.append('\n');
+        rowStarted = false;
+        if (line.length() >= FLUSH_CHARS) {
+            encodeLine();
+        }
+    }
+
+    /**
+     * 写出已缓冲的数据
+     */
+    public void flush() throws IOException {
+        encodeLine();
+        writeBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encodeLine();
+            CharBuffer empty = CharBuffer.allocate(0);
+            while (encoder.encode(empty, bytes, true).isOverflow()) {
+                writeBytes();
+            }
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * 把行缓冲编码到字节缓冲区，字节缓冲区满时写入通道
+     * 行缓冲总是在行尾编码，不会拆开代理对
+     */
+    private void encodeLine() throws IOException {
+        int length = line.length();
+        if (length == 0) {
+            return;
+        }
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+        // 基于数组的CharBuffer可以使用编码器的快速路径
+        line.getChars(0, length, chars, 0);
+        CharBuffer input = CharBuffer.wrap(chars, 0, length);
+        while (true) {
+            CoderResult result = encoder.encode(input, bytes, false);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else {
+                break;
+            }
+        }
+        line.setLength(0);
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
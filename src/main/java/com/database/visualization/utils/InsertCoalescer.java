@@ -0,0 +1,140 @@
+package com.database.visualization.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 把连续的单行INSERT合并为多行INSERT
+ * 表名和列清单写法完全相同的相邻语句合并为INSERT ... VALUES (...),(...)，
+ * 合并后的语句不超过指定的字节数和数据库允许的行数
+ */
+public class InsertCoalescer {
+    // INSERT INTO 表名 (列清单) VALUES (，表名不能带空白
+    private static final Pattern SINGLE_ROW_INSERT = Pattern.compile(
+            "(?is)\\s*INSERT\\s+INTO\\s+[^\\s(]+\\s*(\\([^()]*\\))?\\s*VALUES\\s*\\(");
+
+    private final long maxBytes;
+    private final int maxRows;
+    private final boolean backslashEscapes;
+
+    /**
+     * @param databaseType 数据库类型
+     * @param maxBytes 合并后语句的最大字节数（按UTF-8计算）
+     */
+    public InsertCoalescer(String databaseType, long maxBytes) {
+        String type = databaseType != null ? databaseType.toLowerCase() : "";
+        this.maxBytes = maxBytes;
+        // SQL Server的VALUES子句最多1000行
+        this.maxRows = type.equals("sqlserver") ? 1000 : Integer.MAX_VALUE;
+        this.backslashEscapes = type.equals("mysql");
+    }
+
+    /**
+     * 是否对该数据库合并INSERT
+     * Oracle不支持多行VALUES；SQLite在进程内执行，没有网络往返可以节省，合并后解析大语句反而更慢
+     */
+    public static boolean isSupported(String databaseType) {
+        String type = databaseType != null ? databaseType.toLowerCase() : "";
+        return type.equals("mysql") || type.equals("postgresql") || type.equals("sqlserver");
+    }
+
+    /**
+     * 合并一组语句中相邻的单行INSERT，其他语句原样保留，顺序不变
+     */
+    public List<String> coalesce(List<String> statements) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = null;
+        String currentPrefix = null;
+        long currentBytes = 0;
+        int currentRows = 0;
+
+        for (String sql : statements) {
+            int tupleStart = findSingleRowTuple(sql);
+            if (tupleStart < 0) {
+                if (current != null) {
+                    result.add(current.toString());
+                    current = null;
+                }
+                result.add(sql);
+                continue;
+            }
+
+            String prefix = sql.substring(0, tupleStart);
+            String tuple = sql.substring(tupleStart).trim();
+            long tupleBytes = utf8Length(tuple) + 1;
+            if (current != null && prefix.equals(currentPrefix)
+                    && currentBytes + tupleBytes <= maxBytes && currentRows < maxRows) {
+                current.append(',').append(tuple);
+                currentBytes += tupleBytes;
+                currentRows++;
+            } else {
+                if (current != null) {
+                    result.add(current.toString());
+                }
+                current = new StringBuilder(sql.trim());
+                currentPrefix = prefix;
+                currentBytes = utf8Length(sql);
+                currentRows = 1;
+            }
+        }
+        if (current != null) {
+            result.add(current.toString());
+        }
+        return result;
+    }
+
+    /**
+     * 查找单行INSERT中VALUES后的括号
+     * @return 括号的位置，语句不是单行INSERT（多行、带ON DUPLICATE KEY等子句）时返回-1
+     */
+    private int findSingleRowTuple(String sql) {
+        Matcher matcher = SINGLE_ROW_INSERT.matcher(sql);
+        if (!matcher.lookingAt()) {
+            return -1;
+        }
+        int start = matcher.end() - 1;
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && backslashEscapes) {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                // 右括号之后只能是空白
+                for (int j = i + 1; j < sql.length(); j++) {
+                    if (!Character.isWhitespace(sql.charAt(j))) {
+                        return -1;
+                    }
+                }
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // 代理对的两个字符合计4字节
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,148 @@
+package com.database.visualization.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 按块并行压缩的gzip输出流
+ * 数据按1MB分块，每块在后台线程中压缩为一个独立的gzip成员，按顺序写出；
+ * 多成员的gzip文件可以被GZIPInputStream和gunzip正常解压。
+ * 所有流共用压缩线程池，等待压缩和写出的块数也由所有流共同限制，同时打开多个流时内存占用不会成倍增加
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    // 所有压缩流共用，压缩任务不会阻塞，不会因为线程不够而死锁
+    private static final ExecutorService compressors = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "gzip-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 所有流中已提交但尚未写出的块数上限
+    private static final Semaphore pendingBlocks = new Semaphore(THREADS * 2);
+
+    private final OutputStream out;
+    // 按写入顺序排列的压缩结果，每个结果占用pendingBlocks的一个许可
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int count;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            submitBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == block.length) {
+                submitBlock();
+            }
+            int size = Math.min(length, block.length - count);
+            System.arraycopy(data, offset, block, count, size);
+            count += size;
+            offset += size;
+            length -= size;
+        }
+    }
+
+    /**
+     * 压缩并写出已缓冲的数据
+     * 每次刷新都会产生一个gzip成员，频繁刷新会降低压缩率
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+            pendingBlocks.release(pending.size());
+            pending.clear();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        acquireBlock();
+        byte[] data = block;
+        int length = count;
+        pending.add(compressors.submit(() -> compress(data, length)));
+        block = new byte[BLOCK_SIZE];
+        count = 0;
+    }
+
+    /**
+     * 获取一个块的许可
+     * 许可用完时先写出本流自己等待中的块；本流没有等待中的块时才阻塞，
+     * 这时许可都由其他流持有，它们写出后会归还，不会互相等待
+     */
+    private void acquireBlock() throws IOException {
+        while (!pendingBlocks.tryAcquire()) {
+            if (!pending.isEmpty()) {
+                writeNext();
+                continue;
+            }
+            try {
+                pendingBlocks.acquire();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("压缩被中断", e);
+            }
+        }
+    }
+
+    private void writeNext() throws IOException {
+        Future<byte[]> next = pending.poll();
+        try {
+            out.write(next.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("压缩被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("压缩失败: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pendingBlocks.release();
+        }
+    }
+
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 64 * 1024)) {
+            gzip.write(data, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,357 @@
+package com.database.visualization.utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 逐条读取SQL脚本中的语句
+ * 按块读取文件，不把整个脚本载入内存；识别引号、转义、注释、DELIMITER命令和PostgreSQL的美元符号引用，
+ * 只在引号和注释之外的分隔符处切分语句。注释会被去掉，MySQL的条件注释和优化器提示会保留
+ */
+public class SqlScriptReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 单条语句超过该大小时，读完后不保留缓冲区
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final Reader reader;
+    private final FileChannel channel;
+    private final boolean backslashEscapes;
+    private final boolean hashComments;
+    private final boolean delimiterCommand;
+    private final boolean dollarQuotes;
+    // MySQL要求--后面有空白字符才是注释
+    private final boolean dashCommentNeedsSpace;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private String delimiter = ";";
+    private StringBuilder statement = new StringBuilder();
+    private long statementCount;
+
+    /**
+     * @param reader 脚本内容
+     * @param databaseType 数据库类型，决定支持的引号、注释和转义规则
+     */
+    public SqlScriptReader(Reader reader, String databaseType) {
+        this(reader, null, databaseType);
+    }
+
+    private SqlScriptReader(Reader reader, FileChannel channel, String databaseType) {
+        this.reader = reader;
+        this.channel = channel;
+        String type = databaseType != null ? databaseType.toLowerCase() : "";
+        boolean mysql = type.equals("mysql");
+        this.backslashEscapes = mysql;
+        this.hashComments = mysql;
+        this.delimiterCommand = mysql;
+        this.dashCommentNeedsSpace = mysql;
+        this.dollarQuotes = type.equals("postgresql");
+    }
+
+    /**
+     * 打开SQL脚本文件，按扩展名识别的压缩文件边读边解压
+     * @param file 文件路径
+     * @param charset 文件编码
+     * @param databaseType 数据库类型
+     */
+    public static SqlScriptReader open(Path file, Charset charset, String databaseType) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        CompressionCodec codec = CompressionCodecs.forFile(file);
+        if (codec == null) {
+            return new SqlScriptReader(Channels.newReader(channel, charset.newDecoder(), -1), channel, databaseType);
+        }
+        try {
+            InputStream in = codec.decompress(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            return new SqlScriptReader(new InputStreamReader(in, charset), channel, databaseType);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取下一条语句
+     * @return 去掉首尾空白和分隔符的语句，脚本结束时返回null
+     */
+    public String next() throws IOException {
+        statement.setLength(0);
+        boolean blank = true;
+        char last = 0;
+
+        while (true) {
+            if (blank && delimiterCommand && startsWithIgnoreCase("DELIMITER") && isWhitespace(peek(9))) {
+                position += 9;
+                String newDelimiter = readLine().trim();
+                if (!newDelimiter.isEmpty()) {
+                    delimiter = newDelimiter;
+                }
+                statement.setLength(0);
+                continue;
+            }
+
+            int c = peek(0);
+            if (c < 0) {
+                break;
+            }
+            if (startsWith(delimiter)) {
+                position += delimiter.length();
+                if (!blank) {
+                    return finishStatement();
+                }
+                statement.setLength(0);
+                continue;
+            }
+
+            if (c == '\'' || c == '"' || c == '`') {
+                copyQuoted((char) c);
+            } else if (c == '-' && peek(1) == '-' && (!dashCommentNeedsSpace || isWhitespace(peek(2)) || peek(2) < 0)) {
+                skipLine();
+                c = ' ';
+            } else if (c == '#' && hashComments) {
+                skipLine();
+                c = ' ';
+            } else if (c == '/' && peek(1) == '*') {
+                if (peek(2) == '!' || peek(2) == '+') {
+                    copyBlockComment();
+                } else {
+                    skipBlockComment();
+                    statement.append(' ');
+                    c = ' ';
+                }
+            } else if (c == '$' && dollarQuotes && !isIdentifierPart(last) && copyDollarQuoted()) {
+                // 已复制整个美元符号引用的内容
+            } else {
+                statement.append((char) c);
+                position++;
+            }
+
+            if (blank && !isWhitespace(c)) {
+                blank = false;
+            }
+            last = (char) c;
+        }
+
+        return blank ? null : finishStatement();
+    }
+
+    /**
+     * @return 已读取的语句数
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * 已从文件读取的字节数，用于显示进度；不是从文件打开时返回-1
+     * 底层解码器会预读，返回值略大于已解析的位置；压缩文件是已读取的压缩数据的字节数
+     */
+    public long getPosition() {
+        try {
+            return channel != null ? channel.position() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String finishStatement() {
+        String sql = statement.toString().trim();
+        if (statement.capacity() > MAX_RETAINED_CAPACITY) {
+            statement = new StringBuilder();
+        }
+        statementCount++;
+        return sql;
+    }
+
+    /**
+     * 复制引号包围的字符串或标识符，连续两个引号表示引号本身
+     */
+    private void copyQuoted(char quote) throws IOException {
+        statement.append(quote);
+        position++;
+        int c;
+        while ((c = peek(0)) >= 0) {
+            position++;
+            statement.append((char) c);
+            if (c == '\\' && backslashEscapes && quote != '`') {
+                int escaped = peek(0);
+                if (escaped >= 0) {
+                    position++;
+                    statement.append((char) escaped);
+                }
+            } else if (c == quote) {
+                if (peek(0) != quote) {
+                    return;
+                }
+                position++;
+                statement.append(quote);
+            }
+        }
+    }
+
+    /**
+     * 复制$tag$...$tag$形式的字符串
+     * @return 当前位置不是美元符号引用时返回false，不消耗字符
+     */
+    private boolean copyDollarQuoted() throws IOException {
+        int length = 1;
+        int c;
+        while ((c = peek(length)) >= 0 && c != '$') {
+            if (!(Character.isLetter(c) || c == '_' || (length > 1 && Character.isDigit(c)))) {
+                return false;
+            }
+            length++;
+        }
+        if (c < 0) {
+            return false;
+        }
+        length++;
+        String tag = new String(buffer, position, length);
+        statement.append(tag);
+        position += length;
+
+        while (peek(0) >= 0) {
+            if (startsWith(tag)) {
+                statement.append(tag);
+                position += tag.length();
+                return true;
+            }
+            statement.append(buffer[position++]);
+        }
+        return true;
+    }
+
+    private void copyBlockComment() throws IOException {
+        statement.append("/*");
+        position += 2;
+        while (peek(0) >= 0) {
+            if (startsWith("*/")) {
+                statement.append("*/");
+                position += 2;
+                return;
+            }
+            statement.append(buffer[position++]);
+        }
+    }
+
+    private void skipBlockComment() throws IOException {
+        position += 2;
+        while (peek(0) >= 0) {
+            if (startsWith("*/")) {
+                position += 2;
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * 跳过到行尾，保留换行符
+     */
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = peek(0)) >= 0 && c != '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * 读取到行尾，消耗换行符
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = peek(0)) >= 0) {
+            position++;
+            if (c == '\n') {
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    private boolean startsWith(String text) throws IOException {
+        if (!ensure(text.length())) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[position + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWithIgnoreCase(String text) throws IOException {
+        if (!ensure(text.length())) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.toUpperCase(buffer[position + i]) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查看当前位置之后第offset个字符，不消耗
+     * @return 字符，超出脚本末尾时返回-1
+     */
+    private int peek(int offset) throws IOException {
+        return ensure(offset + 1) ? buffer[position + offset] : -1;
+    }
+
+    /**
+     * 确保缓冲区中至少有count个未读字符
+     * @return 脚本剩余字符不足count个时返回false
+     */
+    private boolean ensure(int count) throws IOException {
+        if (limit - position >= count) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        if (count > buffer.length) {
+            throw new IOException("分隔符或引用标记过长");
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < count) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c >= 0 && Character.isWhitespace(c);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -2,6 +2,7 @@ package com.database.visualization.view;
 
 import com.database.visualization.controller.DatabaseService;
 import com.database.visualization.model.ConnectionConfig;
+import com.database.visualization.model.PoolProfile;
 
 import javax.swing.*;
 import java.awt.*;
@@ -29,6 +30,11 @@ public class ConnectionDialog extends JDialog {
     private JTextField databaseField;
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JTextField queryTimeoutField;
+    private JTextField maxPoolSizeField;
+    private JTextField minIdleField;
+    private JTextField idleTimeoutField;
+    private JTextArea driverPropertiesArea;
     private JTextArea urlArea;
     
     private static final Map<String, Integer> DEFAULT_PORTS = new HashMap<>();
@@ -50,7 +56,7 @@ public class ConnectionDialog extends JDialog {
         initComponents();
         loadConnectionData();
         
-        setSize(500, 550);
+        setSize(500, 720);
         setLocationRelativeTo(owner);
     }
     
@@ -92,6 +98,11 @@ public class ConnectionDialog extends JDialog {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
                     String selectedType = e.getItem().toString().toLowerCase();
                     updateUIForDatabaseType(selectedType);
+                    // 驱动属性与数据库类型相关，切换类型时换成该类型的默认连接池配置
+                    if (!isUpdatingFields) {
+                        loadPoolProfile(PoolProfile.defaultFor(selectedType.replace(" ", "")));
+                        updateConnectionConfig();
+                    }
                 }
             }
         });
@@ -157,15 +168,76 @@ public class ConnectionDialog extends JDialog {
         passwordField = new JPasswordField(20);
         formPanel.add(passwordField, gbc);
         
-        // URL
+        // 查询超时
         gbc.gridx = 0;
         gbc.gridy = 7;
         gbc.gridwidth = 1;
-        formPanel.add(new JLabel("连接URL:"), gbc);
+        formPanel.add(new JLabel("查询超时(秒):"), gbc);
         
         gbc.gridx = 1;
         gbc.gridy = 7;
         gbc.gridwidth = 2;
+        queryTimeoutField = new JTextField(20);
+        queryTimeoutField.setToolTipText("0表示不限制");
+        formPanel.add(queryTimeoutField, gbc);
+        
+        // 连接池大小
+        gbc.gridx = 0;
+        gbc.gridy = 8;
+        gbc.gridwidth = 1;
+        formPanel.add(new JLabel("最大连接数:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 8;
+        gbc.gridwidth = 2;
+        maxPoolSizeField = new JTextField(20);
+        formPanel.add(maxPoolSizeField, gbc);
+        
+        gbc.gridx = 0;
+        gbc.gridy = 9;
+        gbc.gridwidth = 1;
+        formPanel.add(new JLabel("最小空闲连接:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 9;
+        gbc.gridwidth = 2;
+        minIdleField = new JTextField(20);
+        formPanel.add(minIdleField, gbc);
+        
+        gbc.gridx = 0;
+        gbc.gridy = 10;
+        gbc.gridwidth = 1;
+        formPanel.add(new JLabel("空闲超时(秒):"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 10;
+        gbc.gridwidth = 2;
+        idleTimeoutField = new JTextField(20);
+        idleTimeoutField.setToolTipText("0表示空闲连接不回收");
+        formPanel.add(idleTimeoutField, gbc);
+        
+        // 驱动属性
+        gbc.gridx = 0;
+        gbc.gridy = 11;
+        gbc.gridwidth = 1;
+        formPanel.add(new JLabel("驱动属性:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 11;
+        gbc.gridwidth = 2;
+        driverPropertiesArea = new JTextArea(5, 20);
+        driverPropertiesArea.setToolTipText("每行一个 key=value，传给JDBC驱动");
+        formPanel.add(new JScrollPane(driverPropertiesArea), gbc);
+        
+        // URL
+        gbc.gridx = 0;
+        gbc.gridy = 12;
+        gbc.gridwidth = 1;
+        formPanel.add(new JLabel("连接URL:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 12;
+        gbc.gridwidth = 2;
         urlArea = new JTextArea(3, 20);
         urlArea.setEditable(true);
         JScrollPane urlScrollPane = new JScrollPane(urlArea);
@@ -221,6 +293,11 @@ public class ConnectionDialog extends JDialog {
         databaseField.addCaretListener(caretListener);
         usernameField.addCaretListener(caretListener);
         passwordField.addCaretListener(caretListener);
+        queryTimeoutField.addCaretListener(caretListener);
+        maxPoolSizeField.addCaretListener(caretListener);
+        minIdleField.addCaretListener(caretListener);
+        idleTimeoutField.addCaretListener(caretListener);
+        driverPropertiesArea.addCaretListener(caretListener);
     }
     
     /**
@@ -350,6 +427,14 @@ public class ConnectionDialog extends JDialog {
             connectionConfig.setUsername(usernameField.getText());
             connectionConfig.setPassword(new String(passwordField.getPassword()));
             
+            try {
+                connectionConfig.setQueryTimeout(Integer.parseInt(queryTimeoutField.getText().trim()));
+            } catch (NumberFormatException e) {
+                // 忽略错误的超时时间
+            }
+            
+            connectionConfig.setPoolProfile(readPoolProfile());
+            
             connectionConfig.generateUrl();
             urlArea.setText(connectionConfig.getUrl());
         } finally {
@@ -357,6 +442,40 @@ public class ConnectionDialog extends JDialog {
         }
     }
     
+    /**
+     * 从表单读取连接池配置，数字填写错误的项保留原值
+     */
+    private PoolProfile readPoolProfile() {
+        PoolProfile profile = DatabaseService.getPoolProfile(connectionConfig).copy();
+        try {
+            profile.setMaximumPoolSize(Integer.parseInt(maxPoolSizeField.getText().trim()));
+        } catch (NumberFormatException e) {
+            // 忽略错误的连接数
+        }
+        try {
+            profile.setMinimumIdle(Integer.parseInt(minIdleField.getText().trim()));
+        } catch (NumberFormatException e) {
+            // 忽略错误的连接数
+        }
+        try {
+            profile.setIdleTimeoutSeconds(Integer.parseInt(idleTimeoutField.getText().trim()));
+        } catch (NumberFormatException e) {
+            // 忽略错误的超时时间
+        }
+        profile.setDataSourceProperties(PoolProfile.parseProperties(driverPropertiesArea.getText()));
+        return profile;
+    }
+    
+    /**
+     * 加载连接池配置到表单
+     */
+    private void loadPoolProfile(PoolProfile profile) {
+        maxPoolSizeField.setText(String.valueOf(profile.getMaximumPoolSize()));
+        minIdleField.setText(String.valueOf(profile.getMinimumIdle()));
+        idleTimeoutField.setText(String.valueOf(profile.getIdleTimeoutSeconds()));
+        driverPropertiesArea.setText(profile.formatProperties());
+    }
+    
     /**
      * 加载连接数据到表单
      */
@@ -387,6 +506,8 @@ public class ConnectionDialog extends JDialog {
             // 设置用户名和密码
             usernameField.setText(connectionConfig.getUsername());
             passwordField.setText(connectionConfig.getPassword());
+            queryTimeoutField.setText(String.valueOf(connectionConfig.getQueryTimeout()));
+            loadPoolProfile(DatabaseService.getPoolProfile(connectionConfig));
             
             // 设置连接URL
             urlArea.setText(connectionConfig.getUrl());
@@ -402,6 +523,8 @@ public class ConnectionDialog extends JDialog {
             databaseField.setText("");
             usernameField.setText("root");
             passwordField.setText("");
+            queryTimeoutField.setText("0");
+            loadPoolProfile(PoolProfile.defaultFor("mysql"));
             urlArea.setText("");
             
             // 更新UI
@@ -1,18 +1,39 @@
 package com.database.visualization.view;
 
+import com.database.visualization.controller.BulkLoader;
+import com.database.visualization.controller.CsvExporter;
+import com.database.visualization.controller.CsvRowSource;
 import com.database.visualization.controller.DatabaseService;
+import com.database.visualization.controller.DmlBuilder;
+import com.database.visualization.controller.DmlStatement;
+import com.database.visualization.controller.MetadataCache;
+import com.database.visualization.controller.PaginationDialect;
+import com.database.visualization.controller.QueryPageCache;
+import com.database.visualization.controller.QueryPaginator;
+import com.database.visualization.controller.RowChunkConsumer;
+import com.database.visualization.controller.RowCountProvider;
+import com.database.visualization.controller.SchemaDumper;
+import com.database.visualization.controller.SqlBatchExecutor;
+import com.database.visualization.controller.StatementRegistry;
+import com.database.visualization.controller.TablePageLoader;
 import com.database.visualization.model.ConnectionConfig;
 import com.database.visualization.model.QueryResultTableModel;
+import com.database.visualization.model.VirtualQueryResultTableModel;
+import com.database.visualization.utils.CompressionCodec;
+import com.database.visualization.utils.CompressionCodecs;
 import com.database.visualization.utils.ConnectionManager;
+import com.database.visualization.utils.CsvWriter;
 import com.database.visualization.utils.SQLFormatter;
+import com.database.visualization.utils.SqlScriptReader;
 import com.database.visualization.utils.TableColumnAdjuster;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import javax.swing.*;
 import javax.swing.event.TreeSelectionEvent;
@@ -26,7 +47,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -51,6 +71,14 @@ public class MainFrame extends JFrame {
     private DefaultMutableTreeNode rootNode;
     private ConnectionConfig currentConnection;
     private QueryResultTableModel resultTableModel;
+    private VirtualQueryResultTableModel virtualTableModel;
+    private QueryPaginator queryPaginator;
+    private String queryPaginatorKey;
+    private QueryPageCache queryPageCache;
+    // 正在执行的SQL及其后台线程，用于停止按钮
+    private SwingWorker<?, ?> runningQueryWorker;
+    private volatile Thread runningQueryThread;
+    private JButton stopButton;
     private DefaultTableCellRenderer cellRenderer;
 
     // 添加分页相关的字段
@@ -63,17 +91,30 @@ public class MainFrame extends JFrame {
     private int currentPage = 1;
     private int pageSize = 500;
     private int totalPages = 1;
-    private int totalRecords = 0;
+    private long totalRecords = 0;
+    // 总行数是否为精确值，否则为统计信息或执行计划给出的估计值
+    private boolean totalRecordsExact = true;
+    private boolean pagedResult = false;
+    private RowCountProvider rowCountProvider;
+    private SwingWorker<Long, Void> exactCountWorker;
+    private JButton exactCountButton;
+    private JButton exportButton;
     private String currentTableName;
 
+    // 流式查询相关参数：每块行数和结果窗口最多保留的行数
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private int maxResultRows = ((Number) ConnectionManager.getSetting("maxResultRows", 100000)).intValue();
+
     // 添加数据编辑相关字段
     private JPanel dataEditPanel;
+    private JCheckBox editableCheckBox;
     private JButton addRowButton;
     private JButton deleteRowButton;
     private JButton submitChangesButton;
     private boolean isDataEditable = false;
+    // 正在后台保存修改，保存完成前不能再编辑或重复提交
+    private boolean savingChanges = false;
     private List<String> primaryKeys = new ArrayList<>();
-    private List<Integer> modifiedRows = new ArrayList<>();
 
     public MainFrame() {
         initComponents();
@@ -163,6 +204,7 @@ public class MainFrame extends JFrame {
         dataEditPanel = createDataEditPanel();
 
         resultTableModel = new QueryResultTableModel(true); // 设置为可编辑
+        resultTableModel.setMemoryBudget(DatabaseService.getResultMemoryBudget()); // 超出预算的结果转存到磁盘
         resultTable = new JTable(resultTableModel);
         resultTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         resultTable.setSelectionMode(ListSelectionModel.SINGLE_INTERVAL_SELECTION);
@@ -490,10 +532,12 @@ public class MainFrame extends JFrame {
 
         JButton newConnButton = new JButton("新建连接");
         JButton executeButton = new JButton("执行SQL");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
         JButton formatButton = new JButton("格式化SQL");
         JButton refreshButton = new JButton("刷新");
         JButton monitorButton = new JButton("性能监控");
-        JButton exportButton = new JButton("导出数据");
+        exportButton = new JButton("导出数据");
 
         newConnButton.addActionListener(new ActionListener() {
             @Override
@@ -509,6 +553,13 @@ public class MainFrame extends JFrame {
             }
         });
 
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                stopRunningQuery();
+            }
+        });
+
         formatButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -519,6 +570,10 @@ public class MainFrame extends JFrame {
         refreshButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                // 手动刷新时重新读取元数据，包括在其他客户端做的修改
+                if (currentConnection != null) {
+                    MetadataCache.invalidate(currentConnection.getId());
+                }
                 refreshDatabaseTree();
             }
         });
@@ -542,16 +597,11 @@ public class MainFrame extends JFrame {
                         JFileChooser fileChooser = new JFileChooser();
                         fileChooser.setDialogTitle("保存CSV文件");
                         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-                        FileNameExtensionFilter filter = new FileNameExtensionFilter("CSV文件", "csv");
-                        fileChooser.setFileFilter(filter);
+                        addExportFileFilters(fileChooser, "CSV文件", "csv");
 
                         int result = fileChooser.showSaveDialog(MainFrame.this);
                         if (result == JFileChooser.APPROVE_OPTION) {
-                            File file = fileChooser.getSelectedFile();
-                            String filePath = file.getAbsolutePath();
-                            if (!filePath.endsWith(".csv")) {
-                                filePath += ".csv";
-                            }
+                            String filePath = getExportFilePath(fileChooser, "csv");
 
                             try {
                                 exportResultsToCsv(filePath);
@@ -600,6 +650,7 @@ public class MainFrame extends JFrame {
 
         toolBar.add(newConnButton);
         toolBar.add(executeButton);
+        toolBar.add(stopButton);
         toolBar.add(formatButton);
         toolBar.add(refreshButton);
         toolBar.add(monitorButton);
@@ -871,6 +922,11 @@ public class MainFrame extends JFrame {
         totalPagesLabel = new JLabel("共 1 页");
         totalPagesLabel.setForeground(new Color(187, 187, 187));
 
+        exactCountButton = new JButton("精确计数");
+        exactCountButton.setBackground(new Color(60, 63, 65));
+        exactCountButton.setForeground(new Color(187, 187, 187));
+        exactCountButton.setEnabled(false);
+
         // 添加事件监听器
         prevPageButton.addActionListener(e -> {
             if (currentPage > 1) {
@@ -902,6 +958,15 @@ public class MainFrame extends JFrame {
             }
         });
 
+        exactCountButton.addActionListener(e -> {
+            if (exactCountWorker != null && !exactCountWorker.isDone()) {
+                // 正在统计时按钮用于取消
+                rowCountProvider.cancel();
+            } else {
+                countExactRows();
+            }
+        });
+
         pageSizeField.addActionListener(e -> {
             try {
                 int size = Integer.parseInt(pageSizeField.getText());
@@ -926,6 +991,7 @@ public class MainFrame extends JFrame {
         panel.add(prevPageButton);
         panel.add(nextPageButton);
         panel.add(totalPagesLabel);
+        panel.add(exactCountButton);
 
         return panel;
     }
@@ -941,39 +1007,29 @@ public class MainFrame extends JFrame {
             throw new Exception("没有可导出的数据");
         }
 
-        try (FileWriter writer = new FileWriter(filePath)) {
+        try (CsvWriter writer = CsvWriter.open(java.nio.file.Paths.get(filePath))) {
             // 写入表头
             int columnCount = resultTableModel.getColumnCount();
             for (int i = 0; i < columnCount; i++) {
-                String columnName = resultTableModel.getColumnName(i);
-                writer.append(columnName);
-                if (i < columnCount - 1) {
-                    writer.append(",");
-                }
+                writer.writeText(resultTableModel.getColumnName(i));
             }
-            writer.append("\n");
+            writer.endRow();
 
-            // 写入数据
+            // 写入数据，直接从列存储中读取单元格；数值不会包含需要转义的字符
             int rowCount = resultTableModel.getRowCount();
             for (int i = 0; i < rowCount; i++) {
                 for (int j = 0; j < columnCount; j++) {
                     Object value = resultTableModel.getValueAt(i, j);
-                    String cellValue = (value == null) ? "" : value.toString();
-
-                    // 处理包含逗号、引号或换行符的单元格
-                    if (cellValue.contains(",") || cellValue.contains("\"") || cellValue.contains("\n")) {
-                        cellValue = "\"" + cellValue.replace("\"", "\"\"") + "\"";
-                    }
-
-                    writer.append(cellValue);
-                    if (j < columnCount - 1) {
-                        writer.append(",");
+                    if (value == null) {
+                        writer.writeNull();
+                    } else if (value instanceof Number) {
+                        writer.beginField().append(value);
+                    } else {
+                        writer.writeText(value.toString());
                     }
                 }
-                writer.append("\n");
+                writer.endRow();
             }
-
-            writer.flush();
         }
     }
 
@@ -988,31 +1044,40 @@ public class MainFrame extends JFrame {
             throw new Exception("没有可导出的数据");
         }
 
-        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-            // 创建一个工作簿
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("数据");
+        int columnCount = resultTableModel.getColumnCount();
+        int rowCount = resultTableModel.getRowCount();
 
-            // 创建表头行
-            Row headerRow = sheet.createRow(0);
-            int columnCount = resultTableModel.getColumnCount();
-            for (int i = 0; i < columnCount; i++) {
-                String columnName = resultTableModel.getColumnName(i);
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columnName);
-            }
+        // 按列类型确定数值列
+        boolean[] numericColumns = new boolean[columnCount];
+        for (int j = 0; j < columnCount; j++) {
+            numericColumns[j] = Number.class.isAssignableFrom(resultTableModel.getColumnClass(j));
+        }
+        int[] columnWidths = sampleExcelColumnWidths(columnCount, rowCount);
 
-            // 创建数据行
-            int rowCount = resultTableModel.getRowCount();
+        // 内存中只保留最近的若干行，其余行写入压缩的临时文件
+        int rowWindow = ((Number) ConnectionManager.getSetting("excelRowWindow", 500)).intValue();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+            // 超过单个工作表的行数上限时，剩余数据写入新的工作表
+            int rowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+            Sheet sheet = null;
+            int sheetRow = 0;
             for (int i = 0; i < rowCount; i++) {
-                Row row = sheet.createRow(i + 1);
+                if (i % rowsPerSheet == 0) {
+                    int sheetIndex = i / rowsPerSheet;
+                    sheet = createExcelSheet(workbook, sheetIndex == 0 ? "数据" : "数据" + (sheetIndex + 1),
+                            columnWidths);
+                    sheetRow = 1;
+                }
+                Row row = sheet.createRow(sheetRow++);
                 for (int j = 0; j < columnCount; j++) {
                     Object value = resultTableModel.getValueAt(i, j);
                     Cell cell = row.createCell(j);
 
                     if (value != null) {
-                        // 根据值的类型设置单元格的值
-                        if (value instanceof Number) {
+                        // 根据列类型和值的类型设置单元格的值
+                        if (numericColumns[j] || value instanceof Number) {
                             cell.setCellValue(((Number) value).doubleValue());
                         } else if (value instanceof Boolean) {
                             cell.setCellValue((Boolean) value);
@@ -1025,17 +1090,60 @@ public class MainFrame extends JFrame {
                 }
             }
 
-            // 自动调整列宽
-            for (int i = 0; i < columnCount; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
             // 写入文件
             workbook.write(fileOut);
+        } finally {
+            workbook.dispose();
             workbook.close();
         }
     }
 
+    /**
+     * 创建工作表并写入表头
+     */
+    private Sheet createExcelSheet(Workbook workbook, String name, int[] columnWidths) {
+        Sheet sheet = workbook.createSheet(name);
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columnWidths.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(resultTableModel.getColumnName(i));
+            sheet.setColumnWidth(i, columnWidths[i]);
+        }
+        return sheet;
+    }
+
+    /**
+     * 根据表头和前若干行估算列宽，单位为1/256字符
+     * 流式写出的行已不在内存中，不能使用autoSizeColumn
+     */
+    private int[] sampleExcelColumnWidths(int columnCount, int rowCount) {
+        int sampleRows = Math.min(rowCount, 1000);
+        int[] widths = new int[columnCount];
+        for (int j = 0; j < columnCount; j++) {
+            int width = getDisplayWidth(resultTableModel.getColumnName(j));
+            for (int i = 0; i < sampleRows; i++) {
+                Object value = resultTableModel.getValueAt(i, j);
+                if (value != null) {
+                    width = Math.max(width, getDisplayWidth(value.toString()));
+                }
+            }
+            // 列宽上限为255个字符
+            widths[j] = Math.min(width + 2, 255) * 256;
+        }
+        return widths;
+    }
+
+    /**
+     * 文本的显示宽度，中文等全角字符按两个字符计算
+     */
+    private static int getDisplayWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length() && width < 255; i++) {
+            width += text.charAt(i) < 0x1100 ? 1 : 2;
+        }
+        return width;
+    }
+
     /**
      * 设置应用程序主题颜色
      */
@@ -1489,9 +1597,10 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        // 清空分页参数
+        // 清空分页参数，重新执行时不再使用之前缓存的页
         currentPage = 1;
         pageField.setText("1");
+        invalidatePageCache();
 
         // 执行SQL
         executeSQLInternal(sql);
@@ -1506,98 +1615,216 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        // 执行分页查询
-        int offset = (currentPage - 1) * pageSize;
-        String paginatedSql = sql;
+        // 单表查询且已知单列主键时使用键集分页
+        String keyColumn = null;
+        String table = QueryPaginator.getSingleTable(sql);
+        if (table != null && table.equalsIgnoreCase(currentTableName) && primaryKeys.size() == 1) {
+            keyColumn = primaryKeys.get(0);
+        }
 
-        // 添加分页语句（根据数据库类型）
-        if (sql.toLowerCase().contains("limit")) {
-            // 已经有LIMIT语句，替换它
-            paginatedSql = sql.replaceAll("(?i)LIMIT\\s+\\d+(?:\\s*,\\s*\\d+)?", "LIMIT " + offset + ", " + pageSize);
-        } else {
-            paginatedSql = sql + " LIMIT " + offset + ", " + pageSize;
+        // 连接、查询或主键变化时重新开始记录分页状态
+        String paginatorKey = currentConnection.getId() + "\n" + keyColumn + "\n" + sql;
+        if (queryPaginator == null || !paginatorKey.equals(queryPaginatorKey)) {
+            queryPaginator = new QueryPaginator(PaginationDialect.forConfig(currentConnection), sql, keyColumn);
+            queryPaginatorKey = paginatorKey;
+        }
+
+        QueryPaginator paginator = queryPaginator;
+        int pageIndex = currentPage - 1;
+        if (queryPageCache == null || !queryPageCache.isFor(paginator, pageSize)) {
+            invalidatePageCache();
+            long cacheBytes = ((Number) ConnectionManager.getSetting("pageCacheMB", 32)).longValue() * 1024 * 1024;
+            queryPageCache = new QueryPageCache(currentConnection, paginator, pageSize, cacheBytes);
+        }
+        QueryPageCache cache = queryPageCache;
+
+        // 已缓存的页直接显示
+        QueryPageCache.Page cachedPage = cache.get(pageIndex);
+        if (cachedPage != null) {
+            showCachedPage(sql, pageIndex, cachedPage);
+            return;
+        }
+
+        // 正在预取的页等待预取完成，不重复查询
+        CompletableFuture<QueryPageCache.Page> loading = cache.getLoading(pageIndex);
+        if (loading != null) {
+            statusLabel.setText("正在读取第 " + currentPage + " 页...");
+            loading.whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+                if (cache != queryPageCache || currentPage - 1 != pageIndex) {
+                    // 等待期间已经翻到其他页
+                    return;
+                }
+                if (page != null) {
+                    showCachedPage(sql, pageIndex, page);
+                } else {
+                    executePageQuery(sql, paginator, cache, pageIndex);
+                }
+            }));
+            return;
         }
 
-        executeSQLInternal(paginatedSql);
+        executePageQuery(sql, paginator, cache, pageIndex);
+    }
+
+    /**
+     * 从数据库读取一页，完成后放入页缓存并预取相邻页
+     */
+    private void executePageQuery(String sql, QueryPaginator paginator, QueryPageCache cache, int pageIndex) {
+        QueryPaginator.PageQuery pageQuery = paginator.getPageQuery(pageIndex, pageSize);
+
+        executeSQLInternal(pageQuery.getSql(), pageQuery.getParameters(), sql, () -> {
+            int rowCount = resultTableModel.getOriginalRowCount();
+            List<List<Object>> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                rows.add(resultTableModel.getOriginalRowData(i));
+            }
+
+            // 记录本页最后一行的键值，下一页从该键值之后读取
+            int keyIndex = paginator.findKeyIndex(resultTableModel.getColumnNames());
+            if (keyIndex >= 0 && rowCount > 0) {
+                paginator.recordPage(pageIndex, pageSize, rowCount, rows.get(rowCount - 1).get(keyIndex));
+            }
+
+            cache.put(pageIndex, new QueryPageCache.Page(resultTableModel.getColumnNames(),
+                    resultTableModel.getColumnTypes(), rows));
+            cache.prefetchAround(pageIndex, rowCount == pageSize);
+        });
+    }
+
+    /**
+     * 显示缓存中的页，并继续预取相邻页
+     */
+    private void showCachedPage(String sql, int pageIndex, QueryPageCache.Page page) {
+        disposeVirtualTableModel();
+        resultTableModel.setData(page.getColumnNames(), page.getColumnTypes(), page.getRows());
+        resultTable.setModel(resultTableModel);
+
+        TableColumnAdjuster adjuster = new TableColumnAdjuster(resultTable);
+        adjuster.adjustColumns();
+
+        int rowCount = page.getRows().size();
+        updateTotalRecords(sql, rowCount, false, true);
+        statusLabel.setText("第 " + (pageIndex + 1) + " 页，返回 " + rowCount + " 条记录");
+
+        queryPageCache.prefetchAround(pageIndex, rowCount == pageSize);
+    }
+
+    /**
+     * 丢弃页缓存，数据被修改或重新执行查询后调用
+     */
+    private void invalidatePageCache() {
+        if (queryPageCache != null) {
+            queryPageCache.dispose();
+            queryPageCache = null;
+        }
     }
 
     /**
      * 内部执行SQL的实现
      */
     private void executeSQLInternal(String sql) {
+        executeSQLInternal(sql, Collections.emptyList(), sql, null);
+    }
+
+    /**
+     * 内部执行SQL的实现
+     * @param sql 实际执行的语句
+     * @param parameters 绑定到占位符的参数
+     * @param sourceSql 用户输入的原始语句，用于解析表名
+     * @param onQueryLoaded 查询结果全部加载后在事件线程中调用，可以为null
+     */
+    private void executeSQLInternal(String sql, List<Object> parameters, String sourceSql, Runnable onQueryLoaded) {
         statusLabel.setText("执行SQL: " + (sql.length() > 50 ? sql.substring(0, 50) + "..." : sql));
 
-        SwingWorker<Map<String, Object>, Void> worker = new SwingWorker<Map<String, Object>, Void>() {
+        SwingWorker<Map<String, Object>, List<List<Object>>> worker = new SwingWorker<Map<String, Object>, List<List<Object>>>() {
+            private boolean firstChunk = true;
+
             @Override
             protected Map<String, Object> doInBackground() {
+                runningQueryThread = Thread.currentThread();
                 if (sql.trim().toLowerCase().startsWith("select") ||
                         sql.trim().toLowerCase().startsWith("show") ||
                         sql.trim().toLowerCase().startsWith("desc")) {
-                    return DatabaseService.executeQuery(currentConnection, sql);
+                    // 流式读取结果，首批数据到达后立即显示
+                    return DatabaseService.executeStreamingQuery(currentConnection, sql, parameters, STREAM_CHUNK_SIZE, maxResultRows,
+                            new RowChunkConsumer() {
+                                @Override
+                                public void onColumns(List<String> columnNames, int[] columnTypes) {
+                                    SwingUtilities.invokeLater(() -> {
+                                        disposeVirtualTableModel();
+                                        resultTableModel.setData(columnNames, columnTypes, new ArrayList<>());
+                                        resultTable.setModel(resultTableModel);
+                                    });
+                                }
+
+                                @Override
+                                public boolean onRows(List<List<Object>> rows) {
+                                    publish(rows);
+                                    return !isCancelled();
+                                }
+                            });
                 } else {
                     return DatabaseService.executeUpdate(currentConnection, sql);
                 }
             }
 
+            @Override
+            protected void process(List<List<List<Object>>> chunks) {
+                for (List<List<Object>> rows : chunks) {
+                    resultTableModel.appendRows(rows);
+                }
+
+                if (firstChunk) {
+                    firstChunk = false;
+                    // 首批数据到达后调整列宽
+                    TableColumnAdjuster adjuster = new TableColumnAdjuster(resultTable);
+                    adjuster.adjustColumns();
+                }
+                statusLabel.setText("正在读取数据，已加载 " + resultTableModel.getRowCount() + " 条记录...");
+            }
+
             @Override
             protected void done() {
+                if (runningQueryWorker == this) {
+                    runningQueryWorker = null;
+                    runningQueryThread = null;
+                    stopButton.setEnabled(false);
+                }
                 try {
                     Map<String, Object> result = get();
                     boolean success = (boolean) result.get("success");
 
                     if (success) {
-                        if (result.containsKey("data")) {
-                            // 检查数据类型，根据类型选择合适的方法处理
-                            Object dataObj = result.get("data");
-                            List<String> columns = (List<String>) result.get("columns");
-
-                            if (dataObj instanceof List<?>) {
-                                if (((List<?>) dataObj).isEmpty() || ((List<?>) dataObj).get(0) instanceof Map) {
-                                    // 如果是List<Map<String, Object>>类型
-                                    List<Map<String, Object>> data = (List<Map<String, Object>>) dataObj;
-                                    resultTableModel.setDataFromMap(data, columns);
-                                } else {
-                                    // 如果是List<List<Object>>类型
-                                    List<List<Object>> data = (List<List<Object>>) dataObj;
-                                    resultTableModel.setData(columns, data);
-                                }
-                            }
-
-                            resultTable.setModel(resultTableModel);
+                        if (result.containsKey("columns")) {
+                            int rowCount = (int) result.get("rowCount");
+                            boolean truncated = Boolean.TRUE.equals(result.get("truncated"));
 
-                            // 获取总记录数（如果有）
-                            if (result.containsKey("totalRecords")) {
-                                totalRecords = (int) result.get("totalRecords");
-                                totalPages = (int) Math.ceil((double) totalRecords / pageSize);
-                            } else {
-                                totalRecords = ((List<?>) dataObj).size();
-                                totalPages = 1;
-                            }
+                            // 执行的语句与原始语句不同说明是分页查询
+                            updateTotalRecords(sourceSql, rowCount, truncated, !sql.equals(sourceSql));
 
                             // 调整列宽
-                            TableColumnAdjuster adjuster = new TableColumnAdjuster(resultTable);
-                            adjuster.adjustColumns();
+                            if (firstChunk) {
+                                TableColumnAdjuster adjuster = new TableColumnAdjuster(resultTable);
+                                adjuster.adjustColumns();
+                            }
 
                             // 尝试解析出表名(仅对SELECT语句)
-                            String lowerSql = sql.toLowerCase().trim();
+                            String lowerSql = sourceSql.toLowerCase().trim();
                             if (lowerSql.startsWith("select")) {
                                 // 尝试从SQL中提取表名
                                 extractTableNameAndFetchPrimaryKeys(lowerSql);
                             }
 
                             // 更新状态
-                            statusLabel.setText("查询执行成功，返回 " + totalRecords + " 条记录");
-
-                            // 更新分页信息
-                            updatePaginationInfo();
+                            if (truncated) {
+                                statusLabel.setText("查询执行成功，结果过大，仅显示前 " + rowCount + " 条记录");
+                            } else {
+                                statusLabel.setText("查询执行成功，返回 " + rowCount + " 条记录");
+                            }
 
-                            // 添加到历史记录
-                            SwingUtilities.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    // 如果需要，添加查询历史
-                                }
-                            });
+                            if (onQueryLoaded != null) {
+                                onQueryLoaded.run();
+                            }
                         } else {
                             // 添加空值检查，避免空指针异常
                             Object updateCountObj = result.get("updateCount");
@@ -1608,6 +1835,9 @@ public class MainFrame extends JFrame {
                                 statusLabel.setText("操作执行成功");
                             }
 
+                            // 数据已改变，缓存的页不再有效
+                            invalidatePageCache();
+
                             // 如果是DDL语句，刷新树
                             String sqlLower = sql.toLowerCase().trim();
                             if (sqlLower.startsWith("create") || sqlLower.startsWith("drop") ||
@@ -1617,8 +1847,13 @@ public class MainFrame extends JFrame {
                         }
                     } else {
                         String errorMessage = (String) result.get("error");
-                        statusLabel.setText("SQL执行出错: " + errorMessage);
-                        JOptionPane.showMessageDialog(MainFrame.this, errorMessage, "SQL执行错误", JOptionPane.ERROR_MESSAGE);
+                        if (Boolean.TRUE.equals(result.get("cancelled"))) {
+                            // 用户主动停止，不弹出错误
+                            statusLabel.setText("SQL执行已停止");
+                        } else {
+                            statusLabel.setText("SQL执行出错: " + errorMessage);
+                            JOptionPane.showMessageDialog(MainFrame.this, errorMessage, "SQL执行错误", JOptionPane.ERROR_MESSAGE);
+                        }
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -1628,9 +1863,24 @@ public class MainFrame extends JFrame {
             }
         };
 
+        runningQueryWorker = worker;
+        stopButton.setEnabled(true);
         worker.execute();
     }
 
+    /**
+     * 停止正在执行的SQL，通知数据库中止语句并释放连接
+     */
+    private void stopRunningQuery() {
+        Thread thread = runningQueryThread;
+        if (runningQueryWorker == null || thread == null) {
+            return;
+        }
+
+        int cancelled = StatementRegistry.cancel(thread);
+        statusLabel.setText(cancelled > 0 ? "正在停止SQL执行..." : "SQL尚未开始执行，稍后再试");
+    }
+
     /**
      * 从SQL中提取表名并获取主键
      *
@@ -1687,13 +1937,139 @@ public class MainFrame extends JFrame {
         }
     }
 
+    /**
+     * 根据本次读取的行数更新总记录数，无法直接得出时先显示下限，再在后台估算
+     * @param sourceSql 原始查询
+     * @param rowCount 本次读取的行数
+     * @param truncated 结果是否超出读取上限
+     * @param paged 是否为分页查询
+     */
+    private void updateTotalRecords(String sourceSql, int rowCount, boolean truncated, boolean paged) {
+        boolean selectQuery = sourceSql.trim().toLowerCase().startsWith("select");
+        if (paged && rowCount < pageSize && (rowCount > 0 || currentPage == 1)) {
+            // 不满一页说明已到最后一页
+            setTotalRecords((long) (currentPage - 1) * pageSize + rowCount, true, true);
+        } else if ((!truncated && !paged) || !selectQuery) {
+            setTotalRecords(rowCount, true, paged);
+        } else {
+            // 已知的下限：分页读满一页时至少还有下一页，截断时至少多一行
+            long minimum = paged ? (rowCount == pageSize ? (long) currentPage * pageSize + 1 : 0) : rowCount + 1;
+            if (rowCountProvider != null && rowCountProvider.isSameQuery(currentConnection, sourceSql)) {
+                // 同一查询翻页时沿用已有的总数
+                setTotalRecords(Math.max(totalRecords, minimum), totalRecordsExact && totalRecords >= minimum, paged);
+            } else {
+                setTotalRecords(minimum, false, paged);
+                estimateTotalRecords(sourceSql, minimum);
+            }
+            return;
+        }
+
+        if (rowCountProvider != null) {
+            rowCountProvider.cancel();
+            rowCountProvider = null;
+        }
+        updatePaginationInfo();
+    }
+
+    /**
+     * 设置总记录数并重新计算总页数
+     */
+    private void setTotalRecords(long records, boolean exact, boolean paged) {
+        totalRecords = records;
+        totalRecordsExact = exact;
+        pagedResult = paged;
+        totalPages = paged ? (int) Math.min(Integer.MAX_VALUE, Math.max(1, (records + pageSize - 1) / pageSize)) : 1;
+        updatePaginationInfo();
+    }
+
+    /**
+     * 在后台估算查询的总行数，不扫描数据
+     */
+    private void estimateTotalRecords(String sql, long minimum) {
+        if (rowCountProvider != null) {
+            rowCountProvider.cancel();
+        }
+        RowCountProvider provider = new RowCountProvider(currentConnection, sql);
+        rowCountProvider = provider;
+
+        SwingWorker<Long, Void> worker = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() {
+                return provider.estimate();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long estimate = get();
+                    // 查询已经切换或已有精确值时丢弃估计值
+                    if (provider == rowCountProvider && !totalRecordsExact && estimate > totalRecords) {
+                        setTotalRecords(Math.max(estimate, minimum), false, pagedResult);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+
+        worker.execute();
+    }
+
+    /**
+     * 执行精确的COUNT(*)统计，统计期间可以取消
+     */
+    private void countExactRows() {
+        RowCountProvider provider = rowCountProvider;
+        if (provider == null) return;
+
+        exactCountButton.setText("取消计数");
+        statusLabel.setText("正在统计总记录数...");
+
+        exactCountWorker = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return provider.countExact();
+            }
+
+            @Override
+            protected void done() {
+                exactCountButton.setText("精确计数");
+                try {
+                    long count = get();
+                    if (provider == rowCountProvider) {
+                        setTotalRecords(count, true, pagedResult);
+                        statusLabel.setText("统计完成，共 " + count + " 条记录");
+                    }
+                } catch (Exception e) {
+                    if (provider.isCancelled()) {
+                        statusLabel.setText("已取消统计");
+                    } else {
+                        e.printStackTrace();
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        statusLabel.setText("统计总记录数失败: " + cause.getMessage());
+                    }
+                    updatePaginationInfo();
+                }
+            }
+        };
+
+        exactCountWorker.execute();
+        updatePaginationInfo();
+    }
+
     /**
      * 更新分页信息
      */
     private void updatePaginationInfo() {
-        totalPagesLabel.setText("共 " + totalPages + " 页, 共 " + totalRecords + " 条记录");
+        if (totalRecordsExact) {
+            totalPagesLabel.setText("共 " + totalPages + " 页, 共 " + totalRecords + " 条记录");
+        } else {
+            totalPagesLabel.setText("约 " + totalPages + " 页, 约 " + totalRecords + " 条记录");
+        }
         prevPageButton.setEnabled(currentPage > 1);
         nextPageButton.setEnabled(currentPage < totalPages);
+        boolean counting = exactCountWorker != null && !exactCountWorker.isDone();
+        exactCountButton.setEnabled(counting || (!totalRecordsExact && rowCountProvider != null));
     }
 
     /**
@@ -2069,7 +2445,7 @@ public class MainFrame extends JFrame {
         panel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
         panel.setBackground(new Color(60, 63, 65));
 
-        JCheckBox editableCheckBox = new JCheckBox("启用编辑");
+        editableCheckBox = new JCheckBox("启用编辑");
         editableCheckBox.setForeground(new Color(187, 187, 187));
         editableCheckBox.setBackground(new Color(60, 63, 65));
 
@@ -2091,10 +2467,7 @@ public class MainFrame extends JFrame {
         // 添加监听器
         editableCheckBox.addActionListener(e -> {
             isDataEditable = editableCheckBox.isSelected();
-            resultTableModel.setEditable(isDataEditable);
-            addRowButton.setEnabled(isDataEditable);
-            deleteRowButton.setEnabled(isDataEditable);
-            submitChangesButton.setEnabled(isDataEditable);
+            updateDataEditControls();
 
             if (isDataEditable && currentTableName != null) {
                 // 获取表的主键信息，用于编辑时生成更新语句
@@ -2103,22 +2476,13 @@ public class MainFrame extends JFrame {
         });
 
         addRowButton.addActionListener(e -> {
-            // 添加新行
+            // 添加新行，表格模型会把它记录为新增行
             resultTableModel.addRow();
-
-            // 记录修改
-            int rowCount = resultTableModel.getRowCount();
-            if (rowCount > 0) {
-                modifiedRows.add(Integer.valueOf(rowCount - 1));
-            }
         });
 
         deleteRowButton.addActionListener(e -> {
             int selectedRow = resultTable.getSelectedRow();
             if (selectedRow != -1) {
-                // 记录要删除的行
-                modifiedRows.add(Integer.valueOf(selectedRow));
-
                 // 标记为删除
                 resultTableModel.markRowAsDeleted(selectedRow);
             }
@@ -2137,22 +2501,39 @@ public class MainFrame extends JFrame {
         return panel;
     }
 
+    /**
+     * 按当前状态启用或禁用编辑和导出控件
+     * 滚动浏览时表格显示的是虚拟模型，编辑和导出都作用于隐藏的结果模型，此时全部禁用
+     */
+    private void updateDataEditControls() {
+        boolean resultShown = virtualTableModel == null;
+        boolean editable = isDataEditable && resultShown && !savingChanges;
+        if (resultTable.isEditing() && !editable) {
+            resultTable.getCellEditor().cancelCellEditing();
+        }
+        resultTableModel.setEditable(editable);
+        editableCheckBox.setEnabled(resultShown && !savingChanges);
+        addRowButton.setEnabled(editable);
+        deleteRowButton.setEnabled(editable);
+        submitChangesButton.setEnabled(editable);
+        exportButton.setEnabled(resultShown);
+    }
+
     /**
      * 保存表格更改
      */
     private void saveTableChanges() {
+        // 正在编辑的单元格先提交，一并保存
+        if (resultTable.isEditing()) {
+            resultTable.getCellEditor().stopCellEditing();
+        }
         if (currentConnection == null || currentTableName == null) {
             statusLabel.setText("没有可保存的更改");
             return;
         }
 
-        // 获取表格中所有已修改的行
-        List<Integer> allModifiedRows = new ArrayList<>(modifiedRows);
-        for (int i = 0; i < resultTableModel.getRowCount(); i++) {
-            if (resultTableModel.isRowModified(i) && !allModifiedRows.contains(i)) {
-                allModifiedRows.add(i);
-            }
-        }
+        // 获取表格中所有有改动的行（只遍历改动记录）
+        List<Integer> allModifiedRows = resultTableModel.getChangedRows();
 
         if (allModifiedRows.isEmpty()) {
             JOptionPane.showMessageDialog(this, "没有检测到需要保存的更改", "保存更改", JOptionPane.INFORMATION_MESSAGE);
@@ -2176,9 +2557,9 @@ public class MainFrame extends JFrame {
                 }
             }
 
-            int successCount = 0;
-            List<String> sqlStatements = new ArrayList<>();
-            List<String> errors = new ArrayList<>();
+            List<DmlStatement> sqlStatements = new ArrayList<>();
+            // 每条语句对应的表格行，用于提示失败的行
+            List<Integer> statementRows = new ArrayList<>();
 
             for (Integer rowIndex : allModifiedRows) {
                 if (rowIndex >= resultTableModel.getRowCount()) {
@@ -2187,23 +2568,26 @@ public class MainFrame extends JFrame {
 
                 // 检查是否为已删除的行
                 if (resultTableModel.isRowDeleted(rowIndex)) {
-                    String deleteSql = generateDeleteSQL(rowIndex);
+                    DmlStatement deleteSql = generateDeleteSQL(rowIndex);
                     if (deleteSql != null) {
                         sqlStatements.add(deleteSql);
+                        statementRows.add(rowIndex);
                     }
                 }
                 // 检查是否为新增行
                 else if (resultTableModel.isNewRow(rowIndex)) {
-                    String insertSql = generateInsertSQL(rowIndex);
+                    DmlStatement insertSql = generateInsertSQL(rowIndex);
                     if (insertSql != null) {
                         sqlStatements.add(insertSql);
+                        statementRows.add(rowIndex);
                     }
                 }
                 // 否则是更新
                 else if (resultTableModel.isRowModified(rowIndex)) {
-                    String updateSql = generateUpdateSQL(rowIndex);
+                    DmlStatement updateSql = generateUpdateSQL(rowIndex);
                     if (updateSql != null) {
                         sqlStatements.add(updateSql);
+                        statementRows.add(rowIndex);
                     }
                 }
             }
@@ -2214,50 +2598,68 @@ public class MainFrame extends JFrame {
                 return;
             }
 
-            // 执行所有SQL语句
-            for (String sql : sqlStatements) {
-                try {
-                    Map<String, Object> result = DatabaseService.executeUpdate(currentConnection, sql);
-                    if ((boolean) result.get("success")) {
-                        successCount++;
-                    } else {
-                        String error = (String) result.get("error");
-                        errors.add(error);
-                    }
-                } catch (Exception e) {
-                    errors.add(e.getMessage());
+            // 在一个事务中批量执行所有语句，任一语句失败时全部回滚
+            statusLabel.setText("正在保存 " + sqlStatements.size() + " 项修改...");
+            ConnectionConfig config = currentConnection;
+            savingChanges = true;
+            updateDataEditControls();
+            SwingWorker<Map<String, Object>, Void> worker = new SwingWorker<Map<String, Object>, Void>() {
+                @Override
+                protected Map<String, Object> doInBackground() {
+                    return DatabaseService.executeChangeSet(config, sqlStatements);
                 }
-            }
-
-            if (successCount == sqlStatements.size()) {
-                statusLabel.setText("保存成功 " + successCount + "/" + sqlStatements.size() + " 项修改");
 
-                // 清除修改标记
-                modifiedRows.clear();
-                resultTableModel.clearModifications();
-
-                // 刷新表数据
-                executeCurrentQuery();
+                @Override
+                protected void done() {
+                    savingChanges = false;
+                    updateDataEditControls();
+                    try {
+                        Map<String, Object> result = get();
+                        if ((boolean) result.get("success")) {
+                            statusLabel.setText("保存成功 " + sqlStatements.size() + "/" + sqlStatements.size() + " 项修改");
+
+                            // 清除修改标记
+                            resultTableModel.resetModifiedState();
+
+                            // 刷新表数据，缓存的页已过期
+                            invalidatePageCache();
+                            executeCurrentQuery();
+
+                            // 添加成功提示对话框
+                            JOptionPane.showMessageDialog(MainFrame.this,
+                                    "已成功保存所有修改，共 " + sqlStatements.size() + " 项",
+                                    "保存成功",
+                                    JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            String error = (String) result.get("error");
+                            List<Integer> failedStatements = (List<Integer>) result.get("failedStatements");
+                            StringBuilder failedRows = new StringBuilder();
+                            if (failedStatements != null) {
+                                for (int index : failedStatements) {
+                                    if (failedRows.length() > 0) {
+                                        failedRows.append(", ");
+                                    }
+                                    failedRows.append(statementRows.get(index) + 1);
+                                }
+                            }
 
-                // 添加成功提示对话框
-                JOptionPane.showMessageDialog(this,
-                        "已成功保存所有修改，共 " + successCount + " 项",
-                        "保存成功",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // 显示错误信息
-                StringBuilder errorMsg = new StringBuilder();
-                errorMsg.append("保存部分成功 ").append(successCount).append("/").append(sqlStatements.size()).append(" 项修改");
-                if (!errors.isEmpty()) {
-                    errorMsg.append(", 错误: ").append(errors.get(0));
+                            statusLabel.setText("保存失败，所有修改已回滚: " + error);
+                            JOptionPane.showMessageDialog(MainFrame.this,
+                                    "保存失败，所有修改已回滚，表格中的修改仍保留" +
+                                            (failedRows.length() > 0 ? "\n出错的行: " + failedRows : "") +
+                                            "\n错误: " + error,
+                                    "保存失败", JOptionPane.ERROR_MESSAGE);
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        statusLabel.setText("保存失败: " + e.getMessage());
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                                "保存更改失败: " + e.getMessage(),
+                                "保存失败", JOptionPane.ERROR_MESSAGE);
+                    }
                 }
-                statusLabel.setText(errorMsg.toString());
-
-                JOptionPane.showMessageDialog(this,
-                        "部分更改未能保存，成功: " + successCount + "/" + sqlStatements.size() +
-                                (errors.isEmpty() ? "" : "\n错误: " + String.join("\n", errors)),
-                        "保存部分成功", JOptionPane.WARNING_MESSAGE);
-            }
+            };
+            worker.execute();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -2269,169 +2671,28 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * 生成更新SQL语句
+     * 生成更新语句
      */
-    private String generateUpdateSQL(int row) {
-        if (currentTableName == null || primaryKeys.isEmpty()) return null;
-
-        StringBuilder sql = new StringBuilder();
-        sql.append("UPDATE ").append(currentTableName).append(" SET ");
-
-        List<String> columnNames = resultTableModel.getColumnNames();
-        List<Object> values = resultTableModel.getRowData(row);
-        List<Object> originalValues = resultTableModel.getOriginalRowData(row);
-
-        boolean hasChanges = false;
-
-        // 构建SET子句
-        for (int i = 0; i < columnNames.size(); i++) {
-            String columnName = columnNames.get(i);
-            Object value = values.get(i);
-            Object originalValue = (originalValues != null && i < originalValues.size()) ? originalValues.get(i) : null;
-
-            // 跳过主键
-            if (primaryKeys.contains(columnName)) {
-                continue;
-            }
-
-            // 比较值是否变化
-            if ((value == null && originalValue != null) ||
-                    (value != null && !value.equals(originalValue))) {
-
-                if (hasChanges) {
-                    sql.append(", ");
-                }
-
-                sql.append(columnName).append(" = ");
-
-                if (value == null) {
-                    sql.append("NULL");
-                } else if (value instanceof Number) {
-                    sql.append(value);
-                } else {
-                    sql.append("'").append(value.toString().replace("'", "''")).append("'");
-                }
-
-                hasChanges = true;
-            }
-        }
-
-        // 如果没有修改，返回null
-        if (!hasChanges) {
-            return null;
-        }
-
-        // 构建WHERE子句
-        sql.append(" WHERE ");
-
-        boolean firstKey = true;
-        for (String key : primaryKeys) {
-            int keyIndex = columnNames.indexOf(key);
-            if (keyIndex >= 0) {
-                if (!firstKey) sql.append(" AND ");
-                sql.append(key).append(" = ");
-
-                Object keyValue = originalValues.get(keyIndex);
-                if (keyValue == null) {
-                    sql.append("NULL");
-                } else if (keyValue instanceof Number) {
-                    sql.append(keyValue);
-                } else {
-                    sql.append("'").append(keyValue.toString().replace("'", "''")).append("'");
-                }
-
-                firstKey = false;
-            }
-        }
-
-        return sql.toString();
+    private DmlStatement generateUpdateSQL(int row) {
+        return DmlBuilder.update(currentTableName, resultTableModel.getColumnNames(), resultTableModel.getColumnTypes(),
+                resultTableModel.getRowData(row), resultTableModel.getOriginalRowData(row),
+                resultTableModel.getModifiedColumns(row), primaryKeys);
     }
 
     /**
-     * 生成插入SQL语句
+     * 生成插入语句
      */
-    private String generateInsertSQL(int row) {
-        if (currentTableName == null) return null;
-
-        StringBuilder sql = new StringBuilder();
-        sql.append("INSERT INTO ").append(currentTableName).append(" (");
-
-        List<String> columnNames = resultTableModel.getColumnNames();
-        List<Object> values = resultTableModel.getRowData(row);
-
-        // 构建列名部分
-        StringBuilder columns = new StringBuilder();
-        StringBuilder valuesPart = new StringBuilder();
-
-        boolean first = true;
-        for (int i = 0; i < columnNames.size(); i++) {
-            String columnName = columnNames.get(i);
-            Object value = values.get(i);
-
-            // 跳过空值
-            if (value == null) {
-                continue;
-            }
-
-            if (!first) {
-                columns.append(", ");
-                valuesPart.append(", ");
-            }
-
-            columns.append(columnName);
-
-            if (value instanceof Number) {
-                valuesPart.append(value);
-            } else {
-                valuesPart.append("'").append(value.toString().replace("'", "''")).append("'");
-            }
-
-            first = false;
-        }
-
-        // 如果没有有效的值，返回null
-        if (first) {
-            return null;
-        }
-
-        sql.append(columns).append(") VALUES (").append(valuesPart).append(")");
-
-        return sql.toString();
-    }
+    private DmlStatement generateInsertSQL(int row) {
+        return DmlBuilder.insert(currentTableName, resultTableModel.getColumnNames(), resultTableModel.getColumnTypes(),
+                resultTableModel.getRowData(row));
+    }
 
     /**
-     * 生成删除SQL语句
+     * 生成删除语句
      */
-    private String generateDeleteSQL(int row) {
-        if (currentTableName == null || primaryKeys.isEmpty()) return null;
-
-        StringBuilder sql = new StringBuilder();
-        sql.append("DELETE FROM ").append(currentTableName).append(" WHERE ");
-
-        List<String> columnNames = resultTableModel.getColumnNames();
-        List<Object> values = resultTableModel.getOriginalRowData(row);
-
-        boolean firstKey = true;
-        for (String key : primaryKeys) {
-            int keyIndex = columnNames.indexOf(key);
-            if (keyIndex >= 0) {
-                if (!firstKey) sql.append(" AND ");
-                sql.append(key).append(" = ");
-
-                Object keyValue = values.get(keyIndex);
-                if (keyValue == null) {
-                    sql.append("NULL");
-                } else if (keyValue instanceof Number) {
-                    sql.append(keyValue);
-                } else {
-                    sql.append("'").append(keyValue.toString().replace("'", "''")).append("'");
-                }
-
-                firstKey = false;
-            }
-        }
-
-        return sql.toString();
+    private DmlStatement generateDeleteSQL(int row) {
+        return DmlBuilder.delete(currentTableName, resultTableModel.getColumnNames(), resultTableModel.getColumnTypes(),
+                resultTableModel.getOriginalRowData(row), primaryKeys);
     }
 
     /**
@@ -2877,6 +3138,8 @@ public class MainFrame extends JFrame {
             if (dialog.isConfirmed()) {
                 ConnectionConfig newConfig = dialog.getConnectionConfig();
                 ConnectionManager.updateConnection(newConfig);
+                // 关闭旧连接池，下次使用时按新的地址和连接池配置重新创建
+                DatabaseService.closeConnection(newConfig.getId());
                 loadConnections();
             }
         });
@@ -3355,16 +3618,20 @@ public class MainFrame extends JFrame {
         JPopupMenu menu = new JPopupMenu();
 
         JMenuItem queryItem = new JMenuItem("查询数据");
+        JMenuItem browseItem = new JMenuItem("滚动浏览");
         JMenuItem structureItem = new JMenuItem("表结构");
         JMenuItem editItem = new JMenuItem("修改表");
         JMenuItem dropItem = new JMenuItem("删除表");
         JMenuItem emptyItem = new JMenuItem("清空表");
         JMenuItem exportItem = new JMenuItem("导出数据");
+        JMenuItem importItem = new JMenuItem("导入数据");
 
         editItem.addActionListener(e -> {
             showEditTableDialog(tableName);
         });
 
+        importItem.addActionListener(e -> importTableData(config, schemaName + "." + tableName));
+
         dropItem.addActionListener(e -> {
             if (JOptionPane.showConfirmDialog(this,
                     "确定要删除表 " + tableName + " 吗？此操作不可逆！",
@@ -3388,76 +3655,20 @@ public class MainFrame extends JFrame {
             executeSQL();
         });
 
+        browseItem.addActionListener(e -> {
+            currentConnection = config;
+            browseTableVirtually(config, schemaName + "." + tableName);
+        });
+
         structureItem.addActionListener(e -> {
             currentConnection = config;
             showTableStructure(schemaName + "." + tableName);
         });
 
-        exportItem.addActionListener(e -> {
-            // 导出数据逻辑
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("导出数据");
-            fileChooser.setFileFilter(new FileNameExtensionFilter("CSV文件", "csv"));
-
-            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-                String filePath = fileChooser.getSelectedFile().getPath();
-                if (!filePath.endsWith(".csv")) {
-                    filePath += ".csv";
-                }
-
-                try {
-                    // 先查询数据
-                    currentConnection = config;
-                    String sql = "SELECT * FROM " + schemaName + "." + tableName;
-                    Map<String, Object> result = DatabaseService.executeQuery(currentConnection, sql);
-
-                    if ((boolean) result.get("success")) {
-                        List<List<Object>> data = (List<List<Object>>) result.get("data");
-                        List<String> columns = (List<String>) result.get("columns");
-
-                        // 导出到CSV
-                        try (FileWriter writer = new FileWriter(filePath)) {
-                            // 写入表头
-                            for (int i = 0; i < columns.size(); i++) {
-                                writer.append(columns.get(i));
-                                if (i < columns.size() - 1) {
-                                    writer.append(",");
-                                }
-                            }
-                            writer.append("\n");
-
-                            // 写入数据
-                            for (List<Object> row : data) {
-                                for (int i = 0; i < row.size(); i++) {
-                                    Object value = row.get(i);
-                                    String cell = value == null ? "" : value.toString();
-
-                                    // 对包含逗号、引号、换行符的单元格进行处理
-                                    if (cell.contains(",") || cell.contains("\"") || cell.contains("\n")) {
-                                        cell = "\"" + cell.replace("\"", "\"\"") + "\"";
-                                    }
-
-                                    writer.append(cell);
-                                    if (i < row.size() - 1) {
-                                        writer.append(",");
-                                    }
-                                }
-                                writer.append("\n");
-                            }
-
-                            JOptionPane.showMessageDialog(this, "导出成功", "导出数据", JOptionPane.INFORMATION_MESSAGE);
-                        }
-                    } else {
-                        JOptionPane.showMessageDialog(this, "查询失败: " + result.get("error"), "错误", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    JOptionPane.showMessageDialog(this, "导出失败: " + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        });
+        exportItem.addActionListener(e -> exportTableData(config, schemaName + "." + tableName));
 
         menu.add(queryItem);
+        menu.add(browseItem);
         menu.add(structureItem);
         menu.addSeparator();
         menu.add(editItem);
@@ -3465,11 +3676,73 @@ public class MainFrame extends JFrame {
         menu.add(emptyItem);
         menu.addSeparator();
         menu.add(exportItem);
+        menu.add(importItem);
 
 
         menu.show(databaseTree, x, y);
     }
 
+    /**
+     * 以虚拟滚动方式浏览整张表，只在内存中保留可视区域附近的数据页
+     */
+    private void browseTableVirtually(ConnectionConfig config, String tableName) {
+        statusLabel.setText("正在打开表: " + tableName);
+
+        SwingWorker<VirtualQueryResultTableModel, Void> worker = new SwingWorker<VirtualQueryResultTableModel, Void>() {
+            @Override
+            protected VirtualQueryResultTableModel doInBackground() throws Exception {
+                // 只有单列主键时才能使用键集分页
+                List<String> keys = DatabaseService.getPrimaryKeys(config, tableName);
+                String keyColumn = keys.size() == 1 ? keys.get(0) : null;
+
+                TablePageLoader loader = new TablePageLoader(config, tableName, keyColumn);
+                List<String> columns = loader.fetchColumnNames();
+                int rowCount = loader.countRows();
+                return new VirtualQueryResultTableModel(columns, rowCount, pageSize, 20, loader);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    VirtualQueryResultTableModel model = get();
+                    disposeVirtualTableModel();
+                    virtualTableModel = model;
+                    resultTable.setModel(model);
+                    // 虚拟模型不可编辑，之前查询的表名不能再用于保存修改
+                    currentTableName = null;
+                    updateDataEditControls();
+
+                    TableColumnAdjuster adjuster = new TableColumnAdjuster(resultTable);
+                    adjuster.adjustColumns();
+
+                    if (rowCountProvider != null) {
+                        rowCountProvider.cancel();
+                        rowCountProvider = null;
+                    }
+                    setTotalRecords(model.getRowCount(), true, false);
+                    statusLabel.setText("滚动浏览表 " + tableName + "，共 " + totalRecords + " 条记录");
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    statusLabel.setText("打开表失败: " + e.getMessage());
+                    JOptionPane.showMessageDialog(MainFrame.this, "打开表失败: " + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        worker.execute();
+    }
+
+    /**
+     * 释放虚拟表格模型占用的后台线程和缓存
+     */
+    private void disposeVirtualTableModel() {
+        if (virtualTableModel != null) {
+            virtualTableModel.dispose();
+            virtualTableModel = null;
+            updateDataEditControls();
+        }
+    }
+
     /**
      * 显示Redis数据库上下文菜单
      */
@@ -3566,11 +3839,28 @@ public class MainFrame extends JFrame {
 
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("保存SQL文件");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("SQL文件(*.sql)", "sql"));
+        addExportFileFilters(fileChooser, "SQL文件", "sql");
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            String filePath = fileChooser.getSelectedFile().getAbsolutePath();
-            if (!filePath.toLowerCase().endsWith(".sql")) {
-                filePath += ".sql";
+            String filePath = getExportFilePath(fileChooser, "sql");
+
+            // 上次导出到该文件时被取消或失败，可以从未完成的分段继续
+            java.nio.file.Path targetPath = java.nio.file.Paths.get(filePath);
+            if (SchemaDumper.hasUnfinishedDump(targetPath)) {
+                int choice = JOptionPane.showConfirmDialog(this,
+                        "该文件有未完成的导出，是否继续上次的导出？\n选择“否”将重新导出",
+                        "继续导出", JOptionPane.YES_NO_CANCEL_OPTION);
+                if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) {
+                    return;
+                }
+                if (choice == JOptionPane.NO_OPTION) {
+                    try {
+                        SchemaDumper.discardUnfinishedDump(targetPath);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        JOptionPane.showMessageDialog(this, "删除未完成的导出失败: " + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                }
             }
 
             // 创建进度对话框
@@ -3596,205 +3886,27 @@ public class MainFrame extends JFrame {
             progressDialog.setLocationRelativeTo(this);
 
             // 使用SwingWorker在后台导出SQL
-            String finalFilePath = filePath;
             SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
                 @Override
                 protected Void doInBackground() throws Exception {
-                    try (FileWriter writer = new FileWriter(finalFilePath)) {
-                        // 写入文件头部，包含数据库信息和导出时间
-                        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                        String header = String.format("-- 导出自数据库: %s\n" +
-                                         "-- 数据库类型: %s\n" +
-                                         "-- 模式名称: %s\n" +
-                                         "-- 导出时间: %s\n\n",
-                                config.getName(), config.getDatabaseType(), schemaName, dateFormat.format(new Date()));
-                        writer.write(header);
-                        
-                        // 添加USE语句
-                        writer.write(String.format("USE `%s`;\n\n", schemaName));
-
-                        // 获取当前模式下的所有表
-                        List<String> tables = DatabaseService.getTables(config, schemaName);
-                        int totalTables = tables.size();
-
-                        for (int i = 0; i < tables.size(); i++) {
-                            if (cancelled.get()) {
-                                break;
-                            }
-
-                            String tableName = tables.get(i);
-                            int progress = (i * 100) / totalTables;
-                            publish(progress);
-                            setStatus("正在导出表: " + tableName);
-
-                            // 导出表结构
-                            writer.write("-- 表结构: " + tableName + "\n");
-                            StringBuilder createTableSql = new StringBuilder("CREATE TABLE " + tableName + " (\n");
-                            
-                            // 获取表列信息
-                            List<Map<String, String>> columns = DatabaseService.getColumns(config, schemaName, tableName);
-                            
-                            // 获取主键信息 - 对表名做处理，如果包含schema前缀需要去掉
-                            String tableNameForPk = tableName;
-                            if (tableName.contains(".")) {
-                                String[] parts = tableName.split("\\.");
-                                tableNameForPk = parts[1];
-                            }
-                            List<String> primaryKeys = DatabaseService.getPrimaryKeys(config, tableNameForPk);
-                            
-                            // 去除主键列表中的重复项
-                            primaryKeys = getPrimaryKeys(primaryKeys);
-
-                            // 标记表结构是否已写入文件
-                            boolean tableWritten = false;
-                            
-                            int columnCount = 0;
-                            for (Map<String, String> column : columns) {
-                                if (columnCount > 0) {
-                                    createTableSql.append(",\n");
-                                }
-                                
-                                String columnName = column.get("name");
-                                String typeName = column.get("type");
-                                
-                                if (columnName == null || typeName == null) {
-                                    // 尝试使用不同的key - 可能是大写
-                                    columnName = column.get("COLUMN_NAME");
-                                    typeName = column.get("TYPE_NAME");
-                                }
-                                
-                                if (columnName == null || typeName == null) {
-                                    // 如果仍然为null，使用默认值避免NullPointerException
-                                    columnName = column.get("NAME") != null ? column.get("NAME") : "unknown_column";
-                                    typeName = column.get("TYPE") != null ? column.get("TYPE") : "VARCHAR";
-                                }
-                                
-                                createTableSql.append("  ").append(columnName).append(" ")
-                                           .append(typeName);
-                                
-                                // 添加大小信息（如果有）
-                                String size = column.get("size");
-                                if (size == null) {
-                                    size = column.get("COLUMN_SIZE");
-                                }
-                                if (size == null) {
-                                    size = column.get("SIZE");
-                                }
-                                
-                                if (size != null && !size.isEmpty()) {
-                                    createTableSql.append("(").append(size).append(")");
-                                }
-                                
-                                // NOT NULL 约束
-                                String nullable = column.get("nullable");
-                                if (nullable == null) {
-                                    nullable = column.get("IS_NULLABLE");
-                                }
-                                
-                                if ("NO".equals(nullable)) {
-                                    createTableSql.append(" NOT NULL");
-                                }
-                                
-                                columnCount++;
-                            }
-                            
-                            // 添加主键约束
-                            if (!primaryKeys.isEmpty()) {
-                                createTableSql.append(",\n  PRIMARY KEY (");
-                                
-                                // 去除主键列表中的重复项
-                                Set<String> uniquePrimaryKeysSe = new LinkedHashSet<>(primaryKeys);
-                                List<String> uniquePKList = new ArrayList<>(uniquePrimaryKeysSe);
-                                
-                                for (int p = 0; p < uniquePKList.size(); p++) {
-                                    if (p > 0) {
-                                        createTableSql.append(", ");
-                                    }
-                                    createTableSql.append(uniquePKList.get(p));
-                                }
-                                createTableSql.append(")");
-                            }
-                            
-                            // 添加collate设置（针对MySQL）作为CREATE TABLE的一部分
-                            if ("mysql".equalsIgnoreCase(config.getDatabaseType())) {
-                                // 尝试查询表的字符集和排序规则
-                                try {
-                                    Map<String, Object> collateResult = DatabaseService.executeQuery(
-                                        config, 
-                                        "SELECT TABLE_COLLATION FROM information_schema.TABLES " +
-                                        "WHERE TABLE_SCHEMA = '" + schemaName + "' " +
-                                        "AND TABLE_NAME = '" + tableNameForPk + "'"
-                                    );
-                                    
-                                    if ((boolean) collateResult.get("success")) {
-                                        List<List<Object>> collateData = (List<List<Object>>) collateResult.get("data");
-                                        if (!collateData.isEmpty() && !collateData.get(0).isEmpty() && collateData.get(0).get(0) != null) {
-                                            String collation = collateData.get(0).get(0).toString();
-                                            createTableSql.append("\n) COLLATE = ").append(collation).append(";\n\n");
-                                            writer.write(createTableSql.toString());
-                                            // 设置已写入标志，避免重复写入
-                                            tableWritten = true;
-                                        }
-                                    }
-                                } catch (Exception ex) {
-                                    // 忽略查询字符集错误，不影响整体导出
-                                    System.err.println("获取表字符集失败: " + ex.getMessage());
-                                }
-                            }
-                            
-                            // 如果没有添加collate（非MySQL或查询失败），则正常结束CREATE TABLE语句
-                            if (!tableWritten) {
-                                createTableSql.append("\n);\n\n");
-                                writer.write(createTableSql.toString());
-                            }
-                            
-                            // 导出表数据
-                            writer.write("-- 表数据: " + tableName + "\n");
-                            Map<String, Object> queryResult = DatabaseService.executeQuery(config, "SELECT * FROM " + tableName);
-                            
-                            if ((boolean) queryResult.get("success")) {
-                                List<String> columnNames = (List<String>) queryResult.get("columns");
-                                List<List<Object>> rows = (List<List<Object>>) queryResult.get("data");
-                                
-                                for (List<Object> row : rows) {
-                                    if (cancelled.get()) {
-                                        break;
+                    try {
+                        // 多个表和大表的多个主键范围并行导出，流式读取写入分段文件，最后拼接
+                        SchemaDumper dumper = new SchemaDumper(config, schemaName);
+                        setStatus("正在读取表结构...");
+                        boolean completed = dumper.dump(targetPath,
+                                SchemaDumper.getDefaultThreads(config), new SchemaDumper.Listener() {
+                                    @Override
+                                    public void onTableStarted(String tableName) {
+                                        setStatus("正在导出表: " + tableName);
                                     }
 
-                                    StringBuilder insertSql = new StringBuilder("INSERT INTO " + tableName + " (");
-                                    StringBuilder values = new StringBuilder("VALUES (");
-
-                                    boolean first = true;
-                                    for (int colIndex = 0; colIndex < columnNames.size(); colIndex++) {
-                                        if (!first) {
-                                            insertSql.append(", ");
-                                            values.append(", ");
-                                        }
-                                        insertSql.append(columnNames.get(colIndex));
-                                        
-                                        Object value = colIndex < row.size() ? row.get(colIndex) : null;
-                                        if (value == null) {
-                                            values.append("NULL");
-                                        } else if (value instanceof String) {
-                                            values.append("'").append(((String) value).replace("'", "''")).append("'");
-                                        } else if (value instanceof Date) {
-                                            values.append("'").append(dateFormat.format(value)).append("'");
-                                        } else {
-                                            values.append(value);
-                                        }
-                                        
-                                        first = false;
+                                    @Override
+                                    public void onTableFinished(int finished, int total) {
+                                        publish((finished * 100) / total);
                                     }
-                                    
-                                    insertSql.append(") ");
-                                    values.append(");");
-                                    writer.write(insertSql.toString() + values.toString() + "\n");
-                                }
-                            }
-                            writer.write("\n");
-                        }
+                                }, cancelled::get);
 
-                        if (!cancelled.get()) {
+                        if (completed) {
                             publish(100);
                             setStatus("导出完成");
                         } else {
@@ -3810,12 +3922,6 @@ public class MainFrame extends JFrame {
                     return null;
                 }
 
-                private List<String> getPrimaryKeys(List<String> primaryKeys) {
-                    Set<String> uniquePrimaryKeysSe = new LinkedHashSet<>(primaryKeys);
-                    primaryKeys = new ArrayList<>(uniquePrimaryKeysSe);
-                    return primaryKeys;
-                }
-
                 private void setStatus(String status) {
                     SwingUtilities.invokeLater(() -> statusLabel.setText(status));
                 }
@@ -3841,6 +3947,214 @@ public class MainFrame extends JFrame {
         }
     }
 
+    /**
+     * 在文件选择对话框中加入未压缩和各压缩格式的过滤器，默认选择未压缩
+     * @param description 文件类型说明，如SQL文件
+     * @param extension 未压缩文件的扩展名，如sql
+     */
+    private void addExportFileFilters(JFileChooser fileChooser, String description, String extension) {
+        FileNameExtensionFilter plainFilter = new FileNameExtensionFilter(
+                description + "(*." + extension + ")", extension);
+        fileChooser.addChoosableFileFilter(plainFilter);
+        for (CompressionCodec codec : CompressionCodecs.getCodecs()) {
+            fileChooser.addChoosableFileFilter(new FileNameExtensionFilter(codec.getName() + "压缩的" + description
+                    + "(*." + extension + "." + codec.getExtension() + ")", codec.getExtension()));
+        }
+        fileChooser.setFileFilter(plainFilter);
+    }
+
+    /**
+     * 获取导出文件路径，文件名没有带扩展名时按选择的过滤器补全
+     */
+    private String getExportFilePath(JFileChooser fileChooser, String extension) {
+        String filePath = fileChooser.getSelectedFile().getAbsolutePath();
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith("." + extension)) {
+            return filePath;
+        }
+        CompressionCodec codec = CompressionCodecs.forFile(filePath);
+        if (codec != null && lowerPath.endsWith("." + extension + "." + codec.getExtension().toLowerCase())) {
+            return filePath;
+        }
+
+        filePath += "." + extension;
+        if (fileChooser.getFileFilter() instanceof FileNameExtensionFilter) {
+            String selected = ((FileNameExtensionFilter) fileChooser.getFileFilter()).getExtensions()[0];
+            for (CompressionCodec candidate : CompressionCodecs.getCodecs()) {
+                if (candidate.getExtension().equals(selected)) {
+                    filePath += "." + selected;
+                    break;
+                }
+            }
+        }
+        return filePath;
+    }
+
+    /**
+     * 导入文件的过滤器，包括各压缩格式
+     */
+    private FileNameExtensionFilter createImportFileFilter(String description, String extension) {
+        List<String> extensions = new ArrayList<>();
+        extensions.add(extension);
+        StringBuilder patterns = new StringBuilder("*." + extension);
+        for (CompressionCodec codec : CompressionCodecs.getCodecs()) {
+            extensions.add(codec.getExtension());
+            patterns.append(", *.").append(extension).append('.').append(codec.getExtension());
+        }
+        return new FileNameExtensionFilter(description + "(" + patterns + ")", extensions.toArray(new String[0]));
+    }
+
+    /**
+     * 将表数据导出为CSV文件
+     * 直接从数据库流式读取并写入文件，不经过结果表格，适合导出大表
+     * @param config 数据库连接配置
+     * @param tableName 表名，可以带schema
+     */
+    private void exportTableData(ConnectionConfig config, String tableName) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("导出数据");
+        addExportFileFilters(fileChooser, "CSV文件", "csv");
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String filePath = getExportFilePath(fileChooser, "csv");
+
+        JDialog progressDialog = new JDialog(this, "导出进度", true);
+        progressDialog.setLayout(new BorderLayout());
+
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+
+        JLabel statusLabel = new JLabel("正在导出 " + tableName + " ...");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton stopButton = new JButton("停止");
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        stopButton.addActionListener(e -> stopped.set(true));
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+
+        progressDialog.add(statusLabel, BorderLayout.NORTH);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        progressDialog.add(buttonPanel, BorderLayout.SOUTH);
+        progressDialog.setSize(400, 150);
+        progressDialog.setLocationRelativeTo(this);
+
+        SwingWorker<Map<String, Object>, Long> worker = new SwingWorker<Map<String, Object>, Long>() {
+            @Override
+            protected Map<String, Object> doInBackground() {
+                return CsvExporter.export(config, "SELECT * FROM " + tableName, java.nio.file.Paths.get(filePath),
+                        this::publish, stopped::get);
+            }
+
+            @Override
+            protected void process(List<Long> chunks) {
+                statusLabel.setText("已导出 " + chunks.get(chunks.size() - 1) + " 行...");
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    Map<String, Object> result = get();
+                    if ((boolean) result.get("success")) {
+                        JOptionPane.showMessageDialog(MainFrame.this, "导出成功，共 " + result.get("rows") + " 行",
+                                "导出数据", JOptionPane.INFORMATION_MESSAGE);
+                    } else if (result.get("cancelled") == null) {
+                        JOptionPane.showMessageDialog(MainFrame.this, "导出失败: " + result.get("error"),
+                                "错误", JOptionPane.ERROR_MESSAGE);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(MainFrame.this, "导出失败: " + e.getMessage(),
+                            "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
+
+    /**
+     * 从CSV文件批量导入表数据
+     * CSV第一行是列名，MySQL和PostgreSQL使用LOAD DATA和COPY导入，其他数据库使用批量INSERT
+     * @param config 数据库连接配置
+     * @param tableName 表名，可以带schema
+     */
+    private void importTableData(ConnectionConfig config, String tableName) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("导入数据");
+        fileChooser.setFileFilter(createImportFileFilter("CSV文件", "csv"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        JDialog progressDialog = new JDialog(this, "导入进度", true);
+        progressDialog.setLayout(new BorderLayout());
+
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+
+        JLabel statusLabel = new JLabel("正在导入 " + file.getName() + " ...");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton stopButton = new JButton("停止");
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        stopButton.addActionListener(e -> stopped.set(true));
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+
+        progressDialog.add(statusLabel, BorderLayout.NORTH);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        progressDialog.add(buttonPanel, BorderLayout.SOUTH);
+        progressDialog.setSize(400, 150);
+        progressDialog.setLocationRelativeTo(this);
+
+        SwingWorker<Map<String, Object>, Long> worker = new SwingWorker<Map<String, Object>, Long>() {
+            @Override
+            protected Map<String, Object> doInBackground() throws Exception {
+                // 与表数据导出使用相同的编码
+                try (CsvRowSource source = CsvRowSource.open(file.toPath(), java.nio.charset.StandardCharsets.UTF_8)) {
+                    return BulkLoader.load(config, tableName, source, this::publish, stopped::get);
+                }
+            }
+
+            @Override
+            protected void process(List<Long> chunks) {
+                statusLabel.setText("已读取 " + chunks.get(chunks.size() - 1) + " 行...");
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    Map<String, Object> result = get();
+                    if ((boolean) result.get("success")) {
+                        String message = "导入完成，共 " + result.get("rows") + " 行（" + result.get("method") + "）";
+                        if (result.get("warning") != null) {
+                            message += "\n未能使用数据库的批量导入: " + result.get("warning");
+                        }
+                        JOptionPane.showMessageDialog(MainFrame.this, message, "导入数据", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(MainFrame.this, "导入失败，已回滚: " + result.get("error"),
+                                "错误", JOptionPane.ERROR_MESSAGE);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(MainFrame.this, "导入失败: " + e.getMessage(),
+                            "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
+
     /**
      * 批量执行SQL语句
      * @param config 数据库连接配置
@@ -3855,7 +4169,7 @@ public class MainFrame extends JFrame {
 
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("选择SQL文件");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("SQL文件(*.sql)", "sql"));
+        fileChooser.setFileFilter(createImportFileFilter("SQL文件", "sql"));
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             String filePath = fileChooser.getSelectedFile().getAbsolutePath();
 
@@ -3934,179 +4248,158 @@ public class MainFrame extends JFrame {
         
         // 使用SwingWorker在后台执行SQL
         SwingWorker<Void, Object[]> worker = new SwingWorker<Void, Object[]>() {
+            private final AtomicInteger completedCount = new AtomicInteger(0);
+            private final AtomicInteger errorCount = new AtomicInteger(0);
+            // 最多允许的排队和执行中的批次数，解析比执行快时阻塞读取，内存占用不随文件大小增长
+            private final int maxPendingBatches = threads * 2;
+            private final Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+            private ExecutorService executor;
+            // 每个执行线程占用一个连接，批次执行时从这里取一个空闲的执行器
+            private BlockingQueue<SqlBatchExecutor> batchExecutors;
+            private long fileSize;
+            private SqlScriptReader reader;
+
             @Override
             protected Void doInBackground() throws Exception {
-                try {
-                    // 读取SQL文件并解析成独立的SQL语句
-                    File file = new File(filePath);
-                    String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-                    
-                    // 简单分割SQL语句（以分号结尾）
-                    List<String> sqlStatements = new ArrayList<>();
-                    StringBuilder currentStatement = new StringBuilder();
-                    boolean inString = false;
-                    boolean escaped = false;
+                fileSize = new File(filePath).length();
+                // 建表等语句还要从连接池取连接，执行线程最多占用连接池大小减一个连接
+                int workers = Math.max(1, Math.min(threads,
+                        DatabaseService.getPoolProfile(config).getMaximumPoolSize() - 1));
+                executor = Executors.newFixedThreadPool(workers);
+                batchExecutors = new ArrayBlockingQueue<>(workers);
+                for (int i = 0; i < workers; i++) {
+                    batchExecutors.add(new SqlBatchExecutor(config));
+                }
+                try (SqlScriptReader scriptReader = SqlScriptReader.open(java.nio.file.Paths.get(filePath),
+                        java.nio.charset.Charset.defaultCharset(), config.getDatabaseType())) {
+                    reader = scriptReader;
+                    publish(new Object[]{"正在执行SQL语句...", 0});
                     
-                    for (char c : content.toCharArray()) {
-                        // 这里增加判断，如果读取行以-- 开头，那么这行就是注释，直接忽略，从下一行开始重新读取
-                        if (c == '\n' && currentStatement.toString().trim().startsWith("--")) {
-                            currentStatement = new StringBuilder();
-                            continue;
-                        }
-
-                        currentStatement.append(c);
-                        
-                        if (c == '\'' && !escaped) {
-                            inString = !inString;
-                        }
-                        
-                        escaped = c == '\\' && !escaped;
-                        
-                        if (c == ';' && !inString) {
-                            String sql = currentStatement.toString().trim();
-                            if (!sql.isEmpty() && !sql.startsWith("--")) {
-                                sqlStatements.add(sql);
+                    // 边解析边执行，数据语句按批次并行执行
+                    List<String> batch = new ArrayList<>(batchSize);
+                    String sql;
+                    while (!stopped.get() && (sql = scriptReader.next()) != null) {
+                        if (isDataStatement(sql)) {
+                            batch.add(sql);
+                            if (batch.size() >= batchSize) {
+                                submitBatch(batch);
+                                batch = new ArrayList<>(batchSize);
                             }
-                            currentStatement = new StringBuilder();
-                        }
-                    }
-                    
-                    // 如果最后一个语句没有分号
-                    String finalSql = currentStatement.toString().trim();
-                    if (!finalSql.isEmpty() && !finalSql.startsWith("--")) {
-                        sqlStatements.add(finalSql);
-                    }
-                    
-                    // 过滤注释和空语句
-                    sqlStatements = sqlStatements.stream()
-                            .map(String::trim)
-                            .filter(sql -> !sql.isEmpty() && !sql.startsWith("--"))
-                            .collect(java.util.stream.Collectors.toList());
-                    
-                    int totalStatements = sqlStatements.size();
-                    publish(new Object[]{"共找到 " + totalStatements + " 条SQL语句", 0});
-                    
-                    // 分类SQL语句为DDL(CREATE TABLE)和DML(INSERT等其他语句)
-                    List<String> createTableStatements = new ArrayList<>();
-                    List<String> otherStatements = new ArrayList<>();
-                    
-                    // 将SQL语句分为CREATE TABLE和其他语句
-                    for (String sql : sqlStatements) {
-                        // 判断是否是CREATE TABLE语句
-                        if (sql.toUpperCase().contains("CREATE TABLE")) {
-                            createTableStatements.add(sql);
                         } else {
-                            otherStatements.add(sql);
-                        }
-                    }
-                    
-                    publish(new Object[]{"正在执行表结构创建语句...", 0});
-                    
-                    // 创建线程池执行SQL语句
-                    ExecutorService executor = Executors.newFixedThreadPool(threads);
-                    
-                    // 批量执行
-                    AtomicInteger completedCount = new AtomicInteger(0);
-                    AtomicInteger errorCount = new AtomicInteger(0);
-                    List<Future<?>> futures = new ArrayList<>();
-                    
-                    // 1. 首先执行所有CREATE TABLE语句 - 这些语句顺序执行，不并行
-                    for (String sql : createTableStatements) {
-                        if (stopped.get()) {
-                            break;
-                        }
-                        
-                        try {
-                            // 执行建表语句
-                            Map<String, Object> result = DatabaseService.executeUpdate(config, sql);
-                            boolean success = (boolean) result.get("success");
-                            
-                            if (success) {
-                                int completed = completedCount.incrementAndGet();
-                                int progress = (completed * 100) / totalStatements;
-                                publish(new Object[]{"已执行表结构语句: " + completed + "/" + createTableStatements.size() + 
-                                      ", 错误: " + errorCount.get(), progress});
-                            } else {
-                                errorCount.incrementAndGet();
-                                String errorMessage = (String) result.get("message");
-                                publish(new Object[]{"表结构语句错误: " + errorMessage, -1});
+                            // 建表等语句可能被后面的数据语句依赖，也可能依赖前面的数据，
+                            // 等已提交的批次执行完后单独执行
+                            if (!batch.isEmpty()) {
+                                submitBatch(batch);
+                                batch = new ArrayList<>(batchSize);
                             }
-                        } catch (Exception e) {
-                            errorCount.incrementAndGet();
-                            publish(new Object[]{"表结构语句错误: " + e.getMessage(), -1});
+                            awaitPendingBatches();
+                            executeStatement(sql, "表结构语句错误: ");
                         }
                     }
-                    
-                    // 2. 然后执行所有其他语句(如INSERT语句) - 可以并行执行
-                    if (!stopped.get()) {
-                        publish(new Object[]{"正在执行数据插入语句...", completedCount.get() * 100 / totalStatements});
-                        
-                        // 将SQL语句分组为批次
-                        List<List<String>> batches = new ArrayList<>();
-                        for (int i = 0; i < otherStatements.size(); i += batchSize) {
-                            batches.add(otherStatements.subList(i, Math.min(i + batchSize, otherStatements.size())));
-                        }
-                        
-                        for (List<String> batch : batches) {
-                            if (stopped.get()) {
-                                break;
-                            }
-                            
-                            Future<?> future = executor.submit(() -> {
-                                for (String sql : batch) {
-                                    if (stopped.get()) {
-                                        break;
-                                    }
-                                    
-                                    try {
-                                        // 执行非查询语句
-                                        Map<String, Object> result = DatabaseService.executeUpdate(config, sql);
-                                        boolean success = (boolean) result.get("success");
-                                        
-                                        if (success) {
-                                            int completed = completedCount.incrementAndGet();
-                                            int progress = (completed * 100) / totalStatements;
-                                            publish(new Object[]{"已执行: " + completed + "/" + totalStatements + 
-                                                  ", 错误: " + errorCount.get(), progress});
-                                        } else {
-                                            errorCount.incrementAndGet();
-                                            String errorMessage = (String) result.get("message");
-                                            publish(new Object[]{"错误: " + errorMessage, -1});
-                                        }
-                                    } catch (Exception e) {
-                                        errorCount.incrementAndGet();
-                                        publish(new Object[]{"错误: " + e.getMessage(), -1});
-                                    }
-                                }
-                            });
-                            futures.add(future);
-                        }
-                        
-                        // 等待所有任务完成
-                        for (Future<?> future : futures) {
-                            if (!stopped.get()) {
-                                future.get();
-                            }
-                        }
+                    if (!batch.isEmpty() && !stopped.get()) {
+                        submitBatch(batch);
                     }
+                    awaitPendingBatches();
                     
-                    executor.shutdown();
-                    
+                    long totalStatements = scriptReader.getStatementCount();
                     // 如果未被停止，则设置为100%完成
                     if (!stopped.get()) {
                         publish(new Object[]{"执行完成, 总共: " + totalStatements + ", 成功: " + 
-                                (totalStatements - errorCount.get()) + ", 错误: " + errorCount.get(), 100});
+                                completedCount.get() + ", 错误: " + errorCount.get(), 100});
                     } else {
                         publish(new Object[]{"执行已停止", -1});
                     }
-                    
                 } catch (Exception e) {
                     e.printStackTrace();
                     publish(new Object[]{"执行失败: " + e.getMessage(), -1});
+                } finally {
+                    executor.shutdown();
+                    executor.awaitTermination(1, TimeUnit.MINUTES);
+                    for (SqlBatchExecutor batchExecutor : batchExecutors) {
+                        batchExecutor.close();
+                    }
                 }
                 return null;
             }
             
+            /**
+             * 插入、更新和删除语句之间没有依赖，可以并行执行
+             */
+            private boolean isDataStatement(String sql) {
+                String prefix = sql.length() > 10 ? sql.substring(0, 10).toUpperCase() : sql.toUpperCase();
+                return prefix.startsWith("INSERT") || prefix.startsWith("REPLACE")
+                        || prefix.startsWith("UPDATE") || prefix.startsWith("DELETE");
+            }
+            
+            /**
+             * 提交一个批次，排队的批次已满时等待
+             */
+            private void submitBatch(List<String> batch) throws InterruptedException {
+                pendingBatches.acquire();
+                try {
+                    executor.submit(() -> {
+                        SqlBatchExecutor batchExecutor = batchExecutors.poll();
+                        try {
+                            if (!stopped.get()) {
+                                Map<String, Object> result = batchExecutor.execute(batch);
+                                completedCount.addAndGet((int) result.get("executed"));
+                                @SuppressWarnings("unchecked")
+                                List<String> errors = (List<String>) result.get("errors");
+                                if (!errors.isEmpty()) {
+                                    errorCount.addAndGet(errors.size());
+                                    publish(new Object[]{"错误: " + errors.get(errors.size() - 1), -1});
+                                } else {
+                                    publish(new Object[]{"已执行: " + completedCount.get() + ", 错误: " + errorCount.get(),
+                                            getFileProgress()});
+                                }
+                            }
+                        } finally {
+                            batchExecutors.offer(batchExecutor);
+                            pendingBatches.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    pendingBatches.release();
+                    throw e;
+                }
+            }
+            
+            /**
+             * 等待所有已提交的批次执行完
+             */
+            private void awaitPendingBatches() throws InterruptedException {
+                pendingBatches.acquire(maxPendingBatches);
+                pendingBatches.release(maxPendingBatches);
+            }
+            
+            private void executeStatement(String sql, String errorPrefix) {
+                try {
+                    Map<String, Object> result = DatabaseService.executeUpdate(config, sql);
+                    if ((boolean) result.get("success")) {
+                        completedCount.incrementAndGet();
+                        publish(new Object[]{"已执行: " + completedCount.get() + ", 错误: " + errorCount.get(),
+                                getFileProgress()});
+                    } else {
+                        errorCount.incrementAndGet();
+                        publish(new Object[]{errorPrefix + result.get("error"), -1});
+                    }
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                    publish(new Object[]{errorPrefix + e.getMessage(), -1});
+                }
+            }
+            
+            /**
+             * 按已读取的文件字节数估算进度
+             */
+            private int getFileProgress() {
+                long position = reader != null ? reader.getPosition() : -1;
+                if (position < 0 || fileSize <= 0) {
+                    return -1;
+                }
+                return (int) Math.min(99, position * 100 / fileSize);
+            }
+            
             @Override
             protected void process(List<Object[]> chunks) {
                 Object[] latestUpdate = chunks.get(chunks.size() - 1);